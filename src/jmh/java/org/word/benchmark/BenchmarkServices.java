@@ -0,0 +1,115 @@
+package org.word.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ReflectionUtils;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.word.config.GroupCacheProperties;
+import org.word.config.OutputCacheProperties;
+import org.word.config.VirtualThreadProperties;
+import org.word.metrics.ConversionMetrics;
+import org.word.service.impl.ConversionLimiter;
+import org.word.service.impl.DocumentVersion;
+import org.word.service.impl.GroupFragmentCache;
+import org.word.service.impl.OutputCache;
+import org.word.service.impl.RenderServiceImpl;
+import org.word.service.impl.WordServiceImpl;
+
+import java.lang.reflect.Field;
+
+/**
+ * 不启动 Spring 容器，按 application.yml 的默认值手工创建服务
+ *
+ * @author kevin
+ */
+public final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    /**
+     * @param parallelism 生成 Table 的线程数，1 表示不并行
+     */
+    public static WordServiceImpl wordService(int parallelism) {
+        return wordService(parallelism, limiter(new VirtualThreadProperties()));
+    }
+
+    /**
+     * @param parallelism 生成 Table 的线程数，1 表示不并行
+     * @param limiter     解析和渲染的并发限制
+     */
+    public static WordServiceImpl wordService(int parallelism, ConversionLimiter limiter) {
+        WordServiceImpl service = new WordServiceImpl();
+        set(service, "parallelism", parallelism);
+        set(service, "parallelThreshold", 200);
+        set(service, "maxDepth", 10);
+        set(service, "maxNodes", 500);
+        set(service, "maxSpecBytes", 268435456L);
+        set(service, "spoolThreshold", 1048576);
+        set(service, "metrics", new ConversionMetrics(new SimpleMeterRegistry()));
+        set(service, "limiter", limiter);
+        service.init();
+        return service;
+    }
+
+    /**
+     * 渲染服务，模板从 classpath 加载，分组片段缓存使用默认配置
+     */
+    public static RenderServiceImpl renderService() {
+        return renderService(limiter(new VirtualThreadProperties()));
+    }
+
+    /**
+     * 渲染服务，模板从 classpath 加载，分组片段缓存使用默认配置
+     *
+     * @param limiter 解析和渲染的并发限制
+     */
+    public static RenderServiceImpl renderService(ConversionLimiter limiter) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        DocumentVersion documentVersion = new DocumentVersion();
+        set(documentVersion, "resourceLoader", new DefaultResourceLoader());
+        set(documentVersion, "templatePrefix", "classpath:/templates/");
+        set(documentVersion, "templateSuffix", ".html");
+        set(documentVersion, "maxDepth", 10);
+        set(documentVersion, "maxNodes", 500);
+
+        RenderServiceImpl service = new RenderServiceImpl();
+        set(service, "springTemplateEngine", templateEngine);
+        set(service, "metrics", new ConversionMetrics(new SimpleMeterRegistry()));
+        set(service, "groupCache", new GroupFragmentCache(new GroupCacheProperties()));
+        set(service, "documentVersion", documentVersion);
+        set(service, "bufferSize", 8192);
+        set(service, "limiter", limiter);
+        // 只比较渲染，不缓存渲染结果
+        OutputCacheProperties outputCacheProperties = new OutputCacheProperties();
+        outputCacheProperties.setEnabled(false);
+        set(service, "outputCache", new OutputCache(outputCacheProperties));
+        service.init();
+        return service;
+    }
+
+    /**
+     * 按配置创建并发限制，未开启虚拟线程时不做限制
+     */
+    public static ConversionLimiter limiter(VirtualThreadProperties properties) {
+        return new ConversionLimiter(properties);
+    }
+
+    static void set(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass() + " has no field " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,190 @@
+package org.word.benchmark;
+
+import org.springframework.util.StreamUtils;
+import org.word.utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试使用的 Swagger 文档：自带的 petstore 和按固定种子生成的合成文档
+ * <ul>
+ * <li>small / medium / large：接口数和模型数递增，模型之间随机引用，包含循环引用</li>
+ * <li>deep：模型按链式引用，嵌套 8 层，没有循环</li>
+ * </ul>
+ *
+ * @author kevin
+ */
+public final class BenchmarkSpecs {
+
+    public static final String PETSTORE = "petstore";
+
+    private static final String[] METHODS = {"get", "post", "put", "delete", "patch"};
+
+    private BenchmarkSpecs() {
+    }
+
+    public static String load(String name) {
+        switch (name) {
+            case PETSTORE:
+                return classpath("specs/petstore.json");
+            case "small":
+                return generate(100, 50, 0, 1);
+            case "medium":
+                return generate(500, 200, 0, 2);
+            case "large":
+                return generate(2000, 600, 0, 3);
+            case "deep":
+                return generate(200, 120, 8, 4);
+            default:
+                throw new IllegalArgumentException("unknown spec " + name);
+        }
+    }
+
+    private static String classpath(String path) {
+        try (InputStream in = BenchmarkSpecs.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException(path + " not found");
+            }
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 生成合成文档
+     *
+     * @param paths 接口数
+     * @param defs  模型数
+     * @param chain 大于 0 时模型按链式引用，每条链 chain 层，否则随机引用
+     * @param seed  随机种子
+     */
+    static String generate(int paths, int defs, int chain, long seed) {
+        Random random = new Random(seed);
+        Map<String, Object> definitions = new LinkedHashMap<>();
+        for (int i = 0; i < defs; i++) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            int count = 2 + random.nextInt(7);
+            for (int j = 0; j < count; j++) {
+                Map<String, Object> property;
+                double r = random.nextDouble();
+                if (chain > 0) {
+                    // 链中除最后一层外，第一个属性引用下一层
+                    property = j == 0 && (i + 1) % chain != 0 ? ref(i + 1) : scalar(random);
+                } else if (r < 0.2) {
+                    property = ref(random.nextInt(defs));
+                } else if (r < 0.3) {
+                    property = map("type", "array", "items", ref(random.nextInt(defs)));
+                } else {
+                    property = scalar(random);
+                }
+                if (random.nextDouble() < 0.8) {
+                    property.put("description", "field " + j + " of dto " + i + " 中文");
+                }
+                properties.put("f" + j, property);
+            }
+            Map<String, Object> definition = map("type", "object", "title", "Dto" + i, "properties", properties);
+            if (random.nextBoolean()) {
+                definition.put("description", "dto " + i);
+            }
+            definitions.put("Dto" + i, definition);
+        }
+
+        Map<String, Object> pathMap = new LinkedHashMap<>();
+        for (int i = 0; i < paths; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            List<String> methods = new ArrayList<>();
+            Collections.addAll(methods, METHODS);
+            Collections.shuffle(methods, random);
+            for (String method : methods.subList(0, 1 + random.nextInt(3))) {
+                List<Object> parameters = new ArrayList<>();
+                for (int k = random.nextInt(6); k > 0; k--) {
+                    parameters.add(parameter(random, k, defs, chain));
+                }
+                Map<String, Object> ok = map("description", "OK");
+                if (random.nextDouble() < 0.7) {
+                    ok.put("schema", random.nextBoolean() ? ref(model(random, defs, chain))
+                        : map("type", "array", "items", ref(model(random, defs, chain))));
+                }
+                item.put(method, map("tags", Collections.singletonList("group" + random.nextInt(20)),
+                    "summary", "operation " + i + " " + method,
+                    "consumes", Collections.singletonList("application/json"),
+                    "produces", Collections.singletonList("application/json"),
+                    "parameters", parameters,
+                    "responses", map("200", ok, "401", map("description", "Unauthorized"))));
+            }
+            pathMap.put("/api/v1/resource" + i + "/{id}", item);
+        }
+
+        Map<String, Object> spec = map("swagger", "2.0",
+            "info", map("title", "synthetic " + paths + "x" + defs, "version", "1.0"),
+            "paths", pathMap, "definitions", definitions);
+        try {
+            return JsonUtils.writeJsonStr(spec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Object> parameter(Random random, int k, int defs, int chain) {
+        double r = random.nextDouble();
+        if (r < 0.3) {
+            return map("name", "q" + k, "in", "query", "description", "query " + k, "required", random.nextBoolean(),
+                "type", "integer", "format", "int64");
+        } else if (r < 0.4) {
+            return map("name", "arr" + k, "in", "query", "description", "arr", "type", "array",
+                "items", map("type", "integer"));
+        } else if (r < 0.5) {
+            return map("name", "h" + k, "in", "header", "description", "header", "type", "string");
+        } else if (r < 0.6) {
+            return map("name", "fd" + k, "in", "formData", "description", "form", "type", "file");
+        } else if (r < 0.85) {
+            return map("name", "body" + k, "in", "body", "description", "body", "required", true,
+                "schema", ref(model(random, defs, chain)));
+        }
+        return map("name", "id" + k, "in", "path", "description", "id", "required", true, "type", "string");
+    }
+
+    /**
+     * 链式文档只引用每条链的第一层，保证展开最深
+     */
+    private static int model(Random random, int defs, int chain) {
+        int index = random.nextInt(defs);
+        return chain > 0 ? index - index % chain : index;
+    }
+
+    private static Map<String, Object> scalar(Random random) {
+        double r = random.nextDouble();
+        if (r < 0.2) {
+            return map("type", "integer", "format", random.nextBoolean() ? "int32" : "int64");
+        } else if (r < 0.35) {
+            return map("type", "string", "format", "date-time");
+        } else if (r < 0.45) {
+            return map("type", "boolean");
+        } else if (r < 0.55) {
+            return map("type", "array", "items", map("type", "string"));
+        }
+        return map("type", "string");
+    }
+
+    private static Map<String, Object> ref(int index) {
+        return map("$ref", "#/definitions/Dto" + index, "originalRef", "Dto" + index);
+    }
+
+    private static Map<String, Object> map(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String)keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,94 @@
+package org.word.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.word.model.OutputFormat;
+import org.word.service.impl.RenderServiceImpl;
+import org.word.service.impl.WordServiceImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 8 个线程同时下载同一文档：shared 相同文档的并发渲染合并为一次，等待的请求直接输出第一个请求写出的临时文件；
+ * separate 每个请求各自渲染。输出写到只计数的流中
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CoalescedRenderBenchmark {
+
+    @Param({"medium", "large"})
+    private String spec;
+
+    @Param({"doc", "docx"})
+    private String format;
+
+    @Param({"shared", "separate"})
+    private String mode;
+
+    private WordServiceImpl service;
+    private RenderServiceImpl renderService;
+    private OutputFormat outputFormat;
+    private Map<String, Object> variables;
+    private String key;
+
+    @Setup
+    public void setup() {
+        service = BenchmarkServices.wordService(1);
+        renderService = BenchmarkServices.renderService();
+        outputFormat = OutputFormat.of(format);
+        variables = service.tableListFromString(BenchmarkSpecs.load(spec));
+        variables.put("url", "http://");
+        variables.put("download", 0);
+        key = "shared".equals(mode) ? String.valueOf(variables.get("specHash")) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        // 与 Model 一样每个请求一份变量，渲染分组时会放入 groups
+        renderService.render(key, new HashMap<>(variables), outputFormat, stats -> { }, out);
+        return out.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
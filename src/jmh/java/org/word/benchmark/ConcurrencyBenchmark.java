@@ -0,0 +1,138 @@
+package org.word.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.word.model.OutputFormat;
+import org.word.service.impl.RenderServiceImpl;
+import org.word.service.impl.WordServiceImpl;
+import org.word.utils.HashUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发压力检查：几百个线程同时转换不同的文档，每次输出的摘要必须与单线程顺序转换的结果完全一致，
+ * 不一致时抛出异常，JMH 报告该基准失败。覆盖解析、并行生成 Table、分组片段缓存、doc 和 docx 渲染。
+ * 线程数可用 -t 调整。
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(200)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    private static final OutputFormat[] FORMATS = {OutputFormat.DOC, OutputFormat.DOCX};
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> specs = new ArrayList<>();
+
+    /**
+     * 顺序转换的摘要，下标为 文档序号 * 格式数 + 格式序号
+     */
+    private final List<String> expected = new ArrayList<>();
+
+    private WordServiceImpl service;
+    private RenderServiceImpl renderService;
+
+    @Setup
+    public void setup() throws IOException {
+        service = BenchmarkServices.wordService(4);
+        renderService = BenchmarkServices.renderService();
+        add(BenchmarkSpecs.PETSTORE, BenchmarkSpecs.load(BenchmarkSpecs.PETSTORE));
+        add("small", BenchmarkSpecs.load("small"));
+        add("deep", BenchmarkSpecs.load("deep"));
+        // 超过并行阈值，走并行生成 Table
+        add("medium", BenchmarkSpecs.load("medium"));
+        for (int seed = 10; seed < 14; seed++) {
+            add("seed" + seed, BenchmarkSpecs.generate(40, 30, 0, seed));
+        }
+        for (int i = 0; i < specs.size(); i++) {
+            for (OutputFormat format : FORMATS) {
+                expected.add(convert(i, format));
+            }
+        }
+    }
+
+    private void add(String name, String spec) {
+        names.add(name);
+        specs.add(spec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        @Setup
+        public void setup(ThreadParams threadParams) {
+            // 各线程从不同的文档开始，同一时刻转换的文档各不相同
+            next = threadParams.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    public String convert(Cursor cursor) throws IOException {
+        int index = cursor.next++ % expected.size();
+        int spec = index / FORMATS.length;
+        OutputFormat format = FORMATS[index % FORMATS.length];
+        String digest = convert(spec, format);
+        if (!digest.equals(expected.get(index))) {
+            throw new IllegalStateException(names.get(spec) + "." + format.getExtension()
+                + " differs from the sequential output");
+        }
+        return digest;
+    }
+
+    private String convert(int spec, OutputFormat format) throws IOException {
+        Map<String, Object> variables = new HashMap<>(service.tableListFromString(specs.get(spec)));
+        variables.put("url", "http://");
+        variables.put("download", 0);
+        if (format == OutputFormat.DOC) {
+            renderService.renderGroups(variables);
+        }
+        MessageDigest digest = HashUtils.sha256();
+        try (OutputStream out = new DigestOutputStream(new NullOutputStream(), digest)) {
+            renderService.render(variables, format, out);
+        }
+        return HashUtils.hex(digest.digest());
+    }
+
+    private static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.word.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.word.parser.SwaggerSpec;
+import org.word.parser.SwaggerStreamParser;
+import org.word.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取文档：整棵 Map 树反序列化与流式解析对比
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"petstore", "small", "medium", "large", "deep"})
+    private String spec;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = BenchmarkSpecs.load(spec);
+    }
+
+    @Benchmark
+    public Map<?, ?> readValue() throws IOException {
+        return JsonUtils.readValue(json, Map.class);
+    }
+
+    @Benchmark
+    public SwaggerSpec streamParse() throws IOException {
+        try (JsonParser parser = JsonUtils.createParser(json)) {
+            return SwaggerStreamParser.parse(parser);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.word.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.word.service.impl.DocxWriter;
+import org.word.service.impl.WordServiceImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渲染文档：
+ * <ul>
+ * <li>word：当前模板，嵌套属性已在 Java 中展开成行</li>
+ * <li>word-recursive：展开成行之前的递归模板，用于对比</li>
+ * <li>docx：DocxWriter 直接生成 Office Open XML</li>
+ * </ul>
+ * 输出写到只计数的流中，不计 IO 开销
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"petstore", "medium", "large", "deep"})
+    private String spec;
+
+    @Param({"word", "word-recursive", "docx"})
+    private String output;
+
+    private SpringTemplateEngine templateEngine;
+    private WordServiceImpl service;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setup() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        service = BenchmarkServices.wordService(1);
+        variables = service.tableListFromString(BenchmarkSpecs.load(spec));
+        variables.put("url", "http://");
+        variables.put("download", 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public long render() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        if ("docx".equals(output)) {
+            DocxWriter.write(variables, out);
+            return out.count;
+        }
+        Context context = new Context();
+        context.setVariables(variables);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        templateEngine.process(output, context, writer);
+        writer.flush();
+        return out.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.word.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.word.parser.OperationFilter;
+import org.word.service.impl.WordServiceImpl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 只转换部分接口的耗时：all 为整个文档，tag 为一个标签（约 1/20 的接口），path 为 10 个路径
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectiveConvertBenchmark {
+
+    @Param({"medium", "large"})
+    private String spec;
+
+    @Param({"all", "tag", "path"})
+    private String selection;
+
+    private String json;
+    private OperationFilter filter;
+    private WordServiceImpl service;
+
+    @Setup
+    public void setup() {
+        json = BenchmarkSpecs.load(spec);
+        service = BenchmarkServices.wordService(1);
+        switch (selection) {
+            case "tag":
+                filter = OperationFilter.of(Collections.singletonList("group0"), null, null);
+                break;
+            case "path":
+                filter = OperationFilter.of(null, Collections.singletonList("/api/v1/resource1?/**"), null);
+                break;
+            default:
+                filter = OperationFilter.ALL;
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public Map<String, Object> tableListFromString() {
+        return service.tableListFromString(json, filter);
+    }
+}
@@ -0,0 +1,184 @@
+package org.word.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+import org.word.config.HttpClientProperties;
+import org.word.config.JavaConfig;
+import org.word.config.SpecCacheProperties;
+import org.word.config.VirtualThreadProperties;
+import org.word.model.OutputFormat;
+import org.word.service.impl.ConversionLimiter;
+import org.word.service.impl.RenderServiceImpl;
+import org.word.service.impl.SpecCache;
+import org.word.service.impl.WordServiceImpl;
+import org.word.utils.VirtualThreads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上游很慢时的吞吐：同时到达 1000 个转换请求，每个请求获取的 Swagger 资源都要等待 delay 毫秒才返回。
+ * platform 与 server.tomcat.max-threads 相同，用 800 个平台线程处理；virtual 每个请求一个虚拟线程，
+ * 解析和渲染由 ConversionLimiter 限制在 CPU 核数。virtual 需要在 JDK 21 及以上运行。
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SlowUpstreamBenchmark {
+
+    private static final int PLATFORM_THREADS = 800;
+
+    @Param({"platform", "virtual"})
+    private String executor;
+
+    @Param({"1000"})
+    private int requests;
+
+    /**
+     * 上游返回前等待的毫秒数
+     */
+    @Param({"2000"})
+    private int delay;
+
+    private HttpServer upstream;
+    private ScheduledExecutorService responder;
+    private CloseableHttpClient httpClient;
+    private WordServiceImpl service;
+    private RenderServiceImpl renderService;
+    private ExecutorService requestExecutor;
+    private String baseUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        byte[] spec = BenchmarkSpecs.load(BenchmarkSpecs.PETSTORE).getBytes(StandardCharsets.UTF_8);
+        // 延迟由定时任务完成，上游自身不为每个等待中的请求占用线程
+        responder = Executors.newScheduledThreadPool(4);
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), requests * 2);
+        upstream.setExecutor(Executors.newFixedThreadPool(4));
+        upstream.createContext("/", exchange -> responder.schedule(() -> respond(exchange, spec),
+            delay, TimeUnit.MILLISECONDS));
+        upstream.start();
+        baseUrl = "http://127.0.0.1:" + upstream.getAddress().getPort() + "/v2/api-docs?i=";
+
+        VirtualThreadProperties virtualThreads = new VirtualThreadProperties();
+        if ("virtual".equals(executor)) {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException("virtual threads require JDK 21+");
+            }
+            virtualThreads.setEnabled(true);
+            requestExecutor = VirtualThreads.newPerTaskExecutor();
+        } else {
+            requestExecutor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+        ConversionLimiter limiter = BenchmarkServices.limiter(virtualThreads);
+
+        // 连接池不成为瓶颈，两种方式只比较处理请求的线程
+        HttpClientProperties httpProperties = new HttpClientProperties();
+        httpProperties.setMaxTotal(requests);
+        httpProperties.setMaxPerRoute(requests);
+        JavaConfig javaConfig = new JavaConfig();
+        PoolingHttpClientConnectionManager connectionManager = javaConfig.httpClientConnectionManager(httpProperties);
+        httpClient = javaConfig.httpClient(connectionManager, httpProperties);
+        RestTemplate restTemplate = javaConfig.restTemplate(httpClient, httpProperties);
+        SpecCacheProperties cacheProperties = new SpecCacheProperties();
+        cacheProperties.setEnabled(false);
+
+        service = BenchmarkServices.wordService(1, limiter);
+        BenchmarkServices.set(service, "restTemplate", restTemplate);
+        BenchmarkServices.set(service, "specCache", new SpecCache(cacheProperties));
+        renderService = BenchmarkServices.renderService(limiter);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            // HttpServer 会关闭超出数量的空闲连接，不复用连接，避免客户端拿到已关闭的连接
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        requestExecutor.shutdownNow();
+        service.destroy();
+        httpClient.close();
+        upstream.stop(0);
+        responder.shutdownNow();
+        ((ExecutorService)upstream.getExecutor()).shutdownNow();
+    }
+
+    @Benchmark
+    public long convertAll() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            String url = baseUrl + i;
+            futures.add(requestExecutor.submit(() -> convert(url)));
+        }
+        long bytes = 0;
+        int failed = 0;
+        for (Future<Integer> future : futures) {
+            int size = future.get();
+            if (size == 0) {
+                failed++;
+            }
+            bytes += size;
+        }
+        // 获取失败时 tableList 返回空结果，不能把失败的请求计入耗时
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " conversions failed");
+        }
+        return bytes;
+    }
+
+    private int convert(String url) throws IOException {
+        Map<String, Object> result = service.tableList(url);
+        if (result.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> variables = new HashMap<>(result);
+        variables.put("url", url);
+        variables.put("download", 0);
+        renderService.renderGroups(variables);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderService.render(variables, OutputFormat.DOC, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,88 @@
+package org.word.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.word.benchmark.BenchmarkServices;
+import org.word.benchmark.BenchmarkSpecs;
+import org.word.parser.SwaggerSpec;
+import org.word.parser.SwaggerSpec.Operation;
+import org.word.parser.SwaggerStreamParser;
+import org.word.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析模型、逐个接口生成 Table，以及从字符串到结果的完整转换
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param({"petstore", "small", "medium", "large", "deep"})
+    private String spec;
+
+    private String json;
+    private WordServiceImpl service;
+    private SwaggerSpec swaggerSpec;
+    private ConversionContext context;
+
+    @Setup
+    public void setup() throws IOException {
+        json = BenchmarkSpecs.load(spec);
+        service = BenchmarkServices.wordService(1);
+        try (JsonParser parser = JsonUtils.createParser(json)) {
+            swaggerSpec = SwaggerStreamParser.parse(parser);
+        }
+    }
+
+    /**
+     * 每次调用使用新的转换上下文，示例和展开行的缓存从空开始，与一次真实转换一致
+     */
+    @Setup(Level.Invocation)
+    public void freshContext() {
+        context = service.createContext(swaggerSpec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public ModelDefinitions parseDefinitions() {
+        return service.parseDefinitions(swaggerSpec);
+    }
+
+    @Benchmark
+    public void buildTables(Blackhole bh) {
+        for (Operation operation : swaggerSpec.getOperations()) {
+            bh.consume(service.buildTable(operation, context));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> tableListFromString() {
+        return service.tableListFromString(json);
+    }
+}
@@ -0,0 +1,87 @@
+package org.word.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.word.benchmark.BenchmarkServices;
+import org.word.benchmark.BenchmarkSpecs;
+import org.word.model.Table;
+import org.word.parser.SwaggerSpec;
+import org.word.parser.SwaggerSpec.Operation;
+import org.word.parser.SwaggerSpec.ResponseSpec;
+import org.word.parser.SwaggerStreamParser;
+import org.word.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求和返回示例的生成：conversion 为一次转换共用一个示例缓存，operation 为每个接口单独生成，
+ * 相当于没有缓存时的做法
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExampleBenchmark {
+
+    @Param({"petstore", "medium", "large", "deep"})
+    private String spec;
+
+    @Param({"conversion", "operation"})
+    private String cache;
+
+    private WordServiceImpl service;
+    private ConversionContext context;
+    private List<Table> tables = new ArrayList<>();
+    private List<ResponseSpec> responses = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        service = BenchmarkServices.wordService(1);
+        SwaggerSpec swaggerSpec;
+        try (JsonParser parser = JsonUtils.createParser(BenchmarkSpecs.load(spec))) {
+            swaggerSpec = SwaggerStreamParser.parse(parser);
+        }
+        context = service.createContext(swaggerSpec);
+        for (Operation operation : swaggerSpec.getOperations()) {
+            tables.add(service.buildTable(operation, context));
+            responses.add(operation.getResponses() == null ? null : operation.getResponses().get("200"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public void examples(Blackhole bh) throws IOException {
+        boolean shared = "conversion".equals(cache);
+        ExampleCache examples = new ExampleCache();
+        for (int i = 0; i < tables.size(); i++) {
+            if (!shared) {
+                examples = new ExampleCache();
+            }
+            bh.consume(service.processRequestParam(tables.get(i).getRequestList(), examples));
+            bh.consume(service.processResponseParam(responses.get(i), context.getDefinitions(), examples));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.word.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.word.benchmark.BenchmarkServices;
+import org.word.benchmark.BenchmarkSpecs;
+import org.word.model.Table;
+import org.word.parser.SwaggerSpec;
+import org.word.parser.SwaggerStreamParser;
+import org.word.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 并行生成 Table 的扩展曲线，与 WordServiceImpl.buildTables 中的做法相同：
+ * 在指定线程数的 ForkJoinPool 中按文档顺序并行生成
+ *
+ * @author kevin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableScalingBenchmark {
+
+    @Param({"medium", "large"})
+    private String spec;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private WordServiceImpl service;
+    private SwaggerSpec swaggerSpec;
+    private ConversionContext context;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        service = BenchmarkServices.wordService(1);
+        try (JsonParser parser = JsonUtils.createParser(BenchmarkSpecs.load(spec))) {
+            swaggerSpec = SwaggerStreamParser.parse(parser);
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshContext() {
+        context = service.createContext(swaggerSpec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        service.destroy();
+    }
+
+    @Benchmark
+    public List<Table> buildTables() throws InterruptedException, ExecutionException {
+        return pool.submit(() -> swaggerSpec.getOperations().parallelStream()
+            .map(operation -> service.buildTable(operation, context))
+            .collect(Collectors.toList())).get();
+    }
+}
@@ -0,0 +1,33 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 批量转换配置
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.batch")
+public class BatchProperties {
+
+    /**
+     * 同时转换的资源数
+     */
+    private int concurrency = 8;
+
+    /**
+     * 同一个主机同时获取的资源数
+     */
+    private int perHost = 2;
+
+    /**
+     * 一次批量转换的总超时时间，超时未完成的资源在 manifest 中记为 timeout
+     */
+    private Duration timeout = Duration.ofMinutes(5);
+}
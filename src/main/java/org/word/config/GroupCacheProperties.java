@@ -0,0 +1,31 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分组片段缓存配置：按标签分组缓存渲染好的 html 片段，文档只有部分分组变化时只重新渲染这些分组
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.group-cache")
+public class GroupCacheProperties {
+
+    /**
+     * 是否增量渲染 doc 文档和页面
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的分组片段数
+     */
+    private int maxEntries = 2048;
+
+    /**
+     * 缓存片段的总大小上限（字符数）
+     */
+    private long maxWeight = 128L * 1024 * 1024;
+}
@@ -0,0 +1,63 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 获取 Swagger 资源的 HTTP 客户端配置
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.http")
+public class HttpClientProperties {
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 200;
+
+    /**
+     * 每个主机的最大连接数
+     */
+    private int maxPerRoute = 20;
+
+    /**
+     * 建立连接超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 读取超时时间
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 从连接池获取连接的超时时间
+     */
+    private Duration poolAcquireTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 服务端没有返回 Keep-Alive 时连接的保持时间
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * 连接空闲超过该时间后，复用前先检查是否可用
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * 空闲超过该时间的连接由后台线程关闭
+     */
+    private Duration maxIdleTime = Duration.ofMinutes(1);
+
+    /**
+     * 是否发送 Accept-Encoding: gzip，读取时边读边解压
+     */
+    private boolean compression = true;
+}
@@ -0,0 +1,38 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 异步转换任务配置
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.job")
+public class JobProperties {
+
+    /**
+     * 同时执行的任务数
+     */
+    private int workers = 2;
+
+    /**
+     * 排队等待的任务数上限，超出时拒绝提交并返回 503
+     */
+    private int queueCapacity = 50;
+
+    /**
+     * 任务结束后结果保留的时间，过期后删除
+     */
+    private Duration retention = Duration.ofMinutes(30);
+
+    /**
+     * 通过 Retry-After 建议客户端轮询或重试的间隔
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
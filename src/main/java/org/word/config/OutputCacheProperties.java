@@ -0,0 +1,41 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 渲染结果缓存配置：内存中按大小 LRU 淘汰，磁盘上按总大小淘汰最久未使用的文件
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.output-cache")
+public class OutputCacheProperties {
+
+    /**
+     * 是否缓存下载的文档和页面
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存缓存的总大小上限（字节），0 表示不使用内存缓存
+     */
+    private long memoryMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 超过该大小的文档只缓存在磁盘上
+     */
+    private long memoryMaxEntryBytes = 4L * 1024 * 1024;
+
+    /**
+     * 磁盘缓存目录，为空时使用 ${java.io.tmpdir}/swagger2word-output；多个节点可以共用同一目录
+     */
+    private String directory;
+
+    /**
+     * 磁盘缓存的总大小上限（字节），0 表示不使用磁盘缓存
+     */
+    private long diskMaxBytes = 1024L * 1024 * 1024;
+}
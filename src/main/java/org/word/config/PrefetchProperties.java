@@ -0,0 +1,64 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 预取配置：定时获取登记的 Swagger 资源，有变化时提前渲染各格式的文档放入渲染结果缓存
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.prefetch")
+public class PrefetchProperties {
+
+    /**
+     * 同时刷新的资源数
+     */
+    private int concurrency = 2;
+
+    /**
+     * 资源没有单独配置时的刷新间隔
+     */
+    private Duration interval = Duration.ofMinutes(5);
+
+    /**
+     * 资源没有单独配置时的随机抖动，每次刷新间隔在 interval ± jitter 之间，避免同时请求上游
+     */
+    private Duration jitter = Duration.ofSeconds(30);
+
+    private List<Source> sources = new ArrayList<>();
+
+    @Data
+    public static class Source {
+
+        /**
+         * 名称，用于状态查询和日志
+         */
+        private String name;
+
+        private String url;
+
+        /**
+         * 刷新间隔，为空时使用全局配置
+         */
+        private Duration interval;
+
+        /**
+         * 随机抖动，为空时使用全局配置
+         */
+        private Duration jitter;
+
+        /**
+         * 提前渲染的格式：doc、docx 下载，html 为 /toWord 页面
+         */
+        private List<String> formats = new ArrayList<>(Arrays.asList("doc", "docx", "html"));
+    }
+}
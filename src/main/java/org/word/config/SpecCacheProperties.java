@@ -0,0 +1,38 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Swagger 资源缓存配置
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.cache")
+public class SpecCacheProperties {
+
+    /**
+     * 是否缓存按 url 获取的 Swagger 资源
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存有效期，过期后通过 If-None-Match/If-Modified-Since 重新校验
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * 最多缓存的资源数
+     */
+    private int maxEntries = 64;
+
+    /**
+     * 缓存资源的总大小上限（字符数）
+     */
+    private long maxWeight = 256L * 1024 * 1024;
+}
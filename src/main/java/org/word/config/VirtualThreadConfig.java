@@ -0,0 +1,39 @@
+package org.word.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.word.utils.VirtualThreads;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 开启 swagger.virtual-threads.enabled 后 Tomcat 用虚拟线程处理请求，
+ * 获取上游资源等阻塞操作不再受 max-threads 限制；解析和渲染由 ConversionLimiter 限制并发数
+ *
+ * @author kevin
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "swagger.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadCustomizer() {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            ProtocolHandler handler = connector.getProtocolHandler();
+            ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+            if (executor == null || !(handler instanceof AbstractProtocol)) {
+                log.warn("virtual threads require JDK 21+, requests are handled by the platform thread pool");
+                return;
+            }
+            ((AbstractProtocol<?>)handler).setExecutor(executor);
+            log.info("requests are handled on virtual threads");
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package org.word.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 虚拟线程配置，需要 JDK 21 及以上，低版本 JDK 上开启时仍使用平台线程池
+ *
+ * @author kevin
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "swagger.virtual-threads")
+public class VirtualThreadProperties {
+
+    /**
+     * 是否用虚拟线程处理请求，等待上游返回 Swagger 资源时不占用平台线程
+     */
+    private boolean enabled = false;
+
+    /**
+     * 同时解析和渲染的请求数上限，0 表示 CPU 核数，只在使用虚拟线程时生效
+     */
+    private int cpuPermits = 0;
+}
@@ -0,0 +1,195 @@
+package org.word.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+import org.word.model.ConversionJob;
+import org.word.model.JobPriority;
+import org.word.model.JobState;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+import org.word.service.JobService;
+import org.word.utils.JobRejectedException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步转换：提交后返回 202 和任务 id，通过 /jobs/{id} 轮询进度，完成后从 /jobs/{id}/result 下载。
+ * 转换大文档时不再长时间占用连接，超时重试也不会重复转换
+ *
+ * @author kevin
+ */
+@Controller
+@Api(tags = "the job API")
+@RequestMapping("/jobs")
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    @ApiOperation(value = "提交 swagger 资源地址，异步转换", notes = "同一资源的任务执行中时返回同一个任务；队列已满时返回 503 和 Retry-After", tags = {"Job"})
+    @ApiResponses(value = {@ApiResponse(code = 202, message = "已提交。"), @ApiResponse(code = 503, message = "队列已满。")})
+    @RequestMapping(method = {RequestMethod.POST})
+    public ResponseEntity<Map<String, Object>> submit(@ApiParam(value = "资源地址", required = true) @RequestParam("url") String url,
+                                                      @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                                                      @ApiParam(value = "优先级：high、normal 或 low", required = false) @RequestParam(value = "priority", required = false) String priority,
+                                                      @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                                                      @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                                                      @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods) {
+        ConversionJob job = jobService.submit(url, OutputFormat.of(format), OperationFilter.of(tags, paths, methods),
+            JobPriority.of(priority));
+        return accepted(job);
+    }
+
+    @ApiOperation(value = "提交 swagger json文件，异步转换", notes = "内容相同的任务执行中时返回同一个任务", tags = {"Job"})
+    @ApiResponses(value = {@ApiResponse(code = 202, message = "已提交。"), @ApiResponse(code = 503, message = "队列已满。")})
+    @RequestMapping(value = "/file", method = {RequestMethod.POST})
+    public ResponseEntity<Map<String, Object>> submit(@ApiParam("swagger json file") @RequestPart("jsonFile") MultipartFile jsonFile,
+                                                      @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                                                      @ApiParam(value = "优先级：high、normal 或 low", required = false) @RequestParam(value = "priority", required = false) String priority,
+                                                      @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                                                      @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                                                      @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods) throws IOException {
+        ConversionJob job = jobService.submit(jsonFile, OutputFormat.of(format),
+            OperationFilter.of(tags, paths, methods), JobPriority.of(priority));
+        return accepted(job);
+    }
+
+    @ApiOperation(value = "提交 application/json 请求体中的 swagger json，异步转换", notes = "请求体可用 gzip 压缩并设置 Content-Encoding: gzip", tags = {"Job"})
+    @ApiResponses(value = {@ApiResponse(code = 202, message = "已提交。"), @ApiResponse(code = 503, message = "队列已满。")})
+    @RequestMapping(value = "/json", method = {RequestMethod.POST}, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> submit(HttpServletRequest request,
+                                                      @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                                                      @ApiParam(value = "优先级：high、normal 或 low", required = false) @RequestParam(value = "priority", required = false) String priority,
+                                                      @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                                                      @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                                                      @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods) throws IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !"gzip".equalsIgnoreCase(encoding) && !"identity".equalsIgnoreCase(encoding)) {
+            return error(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "unsupported Content-Encoding: " + encoding);
+        }
+        ConversionJob job;
+        // gzip 按文件头识别，执行时解压
+        try (InputStream in = request.getInputStream()) {
+            job = jobService.submit(in, OutputFormat.of(format), OperationFilter.of(tags, paths, methods),
+                JobPriority.of(priority));
+        }
+        return accepted(job);
+    }
+
+    @ApiOperation(value = "查询任务状态和各阶段耗时", tags = {"Job"})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。"), @ApiResponse(code = 404, message = "任务不存在或已过期。")})
+    @RequestMapping(value = "/{id}", method = {RequestMethod.GET})
+    public ResponseEntity<Map<String, Object>> status(@ApiParam(value = "任务 id", required = true) @PathVariable("id") String id) {
+        ConversionJob job = jobService.get(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (!job.isFinished()) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(jobService.getRetryAfterSeconds()));
+        }
+        return builder.body(status(job));
+    }
+
+    @ApiOperation(value = "下载任务结果", notes = "任务未完成时返回 409 和 Retry-After，失败时返回 422", tags = {"Job"})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。"), @ApiResponse(code = 404, message = "任务不存在或已过期。")})
+    @RequestMapping(value = "/{id}/result", method = {RequestMethod.GET})
+    public ResponseEntity<Map<String, Object>> result(@ApiParam(value = "任务 id", required = true) @PathVariable("id") String id,
+                                                      HttpServletResponse response) throws IOException {
+        ConversionJob job = jobService.get(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        if (job.getState() == JobState.FAILED) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(status(job));
+        }
+        if (job.getState() != JobState.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(jobService.getRetryAfterSeconds()))
+                .body(status(job));
+        }
+        OutputFormat format = job.getFormat();
+        response.setContentType(format.getContentType());
+        response.setContentLengthLong(job.getResultBytes());
+        response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode("toWord." + format.getExtension(), "utf-8"));
+        try (OutputStream out = response.getOutputStream()) {
+            Files.copy(job.getResult().toPath(), out);
+        }
+        return null;
+    }
+
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<Map<String, Object>> rejected(JobRejectedException e) {
+        Map<String, Object> body = errorBody(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> illegalArgument(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(ConversionJob job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.LOCATION, "/jobs/" + job.getId())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(jobService.getRetryAfterSeconds()))
+            .body(status(job));
+    }
+
+    private Map<String, Object> status(ConversionJob job) {
+        Map<String, Object> status = job.toStatus();
+        int position = jobService.queuePosition(job);
+        if (position >= 0) {
+            status.put("queuePosition", position);
+        }
+        status.put("statusUrl", "/jobs/" + job.getId());
+        if (job.getState() == JobState.DONE) {
+            status.put("resultUrl", "/jobs/" + job.getId() + "/result");
+        }
+        return status;
+    }
+
+    private static ResponseEntity<Map<String, Object>> notFound(String id) {
+        return error(HttpStatus.NOT_FOUND, "job " + id + " does not exist or has expired");
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(errorBody(status, message));
+    }
+
+    private static Map<String, Object> errorBody(HttpStatus status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        return body;
+    }
+}
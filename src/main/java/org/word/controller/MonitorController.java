@@ -0,0 +1,102 @@
+package org.word.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.word.service.JobService;
+import org.word.service.PrefetchService;
+import org.word.service.impl.GroupFragmentCache;
+import org.word.service.impl.OutputCache;
+import org.word.service.impl.SpecCache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行状态
+ *
+ * @author kevin
+ */
+@Controller
+@Api(tags = "the monitor API")
+@RequestMapping("/monitor")
+public class MonitorController {
+
+    @Autowired
+    private SpecCache specCache;
+    @Autowired
+    private GroupFragmentCache groupCache;
+    @Autowired
+    private OutputCache outputCache;
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+    @Autowired
+    private JobService jobService;
+    @Autowired
+    private PrefetchService prefetchService;
+
+    @ApiOperation(value = "Swagger 资源缓存命中情况", tags = {"Monitor"})
+    @RequestMapping(value = "/specCache", method = {RequestMethod.GET})
+    @ResponseBody
+    public Map<String, Object> specCache() {
+        return specCache.stats();
+    }
+
+    @ApiOperation(value = "分组片段缓存复用情况", tags = {"Monitor"})
+    @RequestMapping(value = "/groupCache", method = {RequestMethod.GET})
+    @ResponseBody
+    public Map<String, Object> groupCache() {
+        return groupCache.stats();
+    }
+
+    @ApiOperation(value = "渲染结果缓存命中情况", tags = {"Monitor"})
+    @RequestMapping(value = "/outputCache", method = {RequestMethod.GET})
+    @ResponseBody
+    public Map<String, Object> outputCache() {
+        return outputCache.stats();
+    }
+
+    @ApiOperation(value = "异步转换任务队列状态", tags = {"Monitor"})
+    @RequestMapping(value = "/jobs", method = {RequestMethod.GET})
+    @ResponseBody
+    public Map<String, Object> jobs() {
+        return jobService.stats();
+    }
+
+    @ApiOperation(value = "预取资源的刷新状态", tags = {"Monitor"})
+    @RequestMapping(value = "/sources", method = {RequestMethod.GET})
+    @ResponseBody
+    public List<Map<String, Object>> sources() {
+        return prefetchService.status();
+    }
+
+    @ApiOperation(value = "HTTP 连接池状态", tags = {"Monitor"})
+    @RequestMapping(value = "/httpPool", method = {RequestMethod.GET})
+    @ResponseBody
+    public Map<String, Object> httpPool() {
+        Map<String, Object> stats = poolStats(connectionManager.getTotalStats());
+        Map<String, Object> routes = new LinkedHashMap<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), poolStats(connectionManager.getStats(route)));
+        }
+        stats.put("routes", routes);
+        return stats;
+    }
+
+    private static Map<String, Object> poolStats(PoolStats poolStats) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leased", poolStats.getLeased());
+        stats.put("available", poolStats.getAvailable());
+        stats.put("pending", poolStats.getPending());
+        stats.put("max", poolStats.getMax());
+        return stats;
+    }
+}
@@ -0,0 +1,41 @@
+package org.word.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.word.utils.SpecTooLargeException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 上传文件或 Swagger 资源超出大小限制时返回 413。
+ * 上传大小在解析 multipart 时检查，此时还没有进入 controller，只能在这里统一处理；
+ * 直接写出错误信息，不转发到 /error，否则转发时会再次解析 multipart 而丢失错误信息
+ *
+ * @author kevin
+ */
+@ControllerAdvice
+public class UploadExceptionHandler {
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, Object>> maxUploadSizeExceeded(MaxUploadSizeExceededException e) {
+        return payloadTooLarge(e.getMaxUploadSize() > 0 ? "upload exceeds the limit of " + e.getMaxUploadSize() + " bytes"
+            : "upload exceeds spring.servlet.multipart.max-file-size / max-request-size");
+    }
+
+    @ExceptionHandler(SpecTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> specTooLarge(SpecTooLargeException e) {
+        return payloadTooLarge(e.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, Object>> payloadTooLarge(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.PAYLOAD_TOO_LARGE.value());
+        body.put("error", HttpStatus.PAYLOAD_TOO_LARGE.getReasonPhrase());
+        body.put("message", message);
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(body);
+    }
+}
@@ -1,25 +1,45 @@
 package org.word.controller;
 
+import io.micrometer.core.instrument.Timer;
 import io.swagger.annotations.*;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.word.metrics.ConversionMetrics;
+import org.word.model.GroupStats;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+import org.word.service.BatchService;
+import org.word.service.RenderService;
 import org.word.service.WordService;
+import org.word.service.impl.DocumentVersion;
+import org.word.service.impl.OutputCache;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -35,7 +55,17 @@ public class WordController {
     @Autowired
     private WordService tableService;
     @Autowired
-    private SpringTemplateEngine springTemplateEngine;
+    private RenderService renderService;
+    @Autowired
+    private BatchService batchService;
+    @Autowired
+    private ConversionMetrics metrics;
+    @Autowired
+    private DocumentVersion documentVersion;
+    @Autowired
+    private OutputCache outputCache;
+    @Autowired
+    private ServerProperties serverProperties;
 
     /**
      * 将 swagger 文档转换成 html 文档，可通过在网页上右键另存为 xxx.doc 的方式转换为 word 文档
@@ -50,14 +80,37 @@ public class WordController {
     @RequestMapping(value = "/toWord", method = {RequestMethod.GET})
     public String getWord(Model model,
                           @ApiParam(value = "资源地址", required = false) @RequestParam(value = "url", required = false) String url,
-                          @ApiParam(value = "是否下载", required = false) @RequestParam(value = "download", required = false, defaultValue = "1") Integer download) {
-        generateModelData(model, url, download);
-        return "word";
+                          @ApiParam(value = "是否下载", required = false) @RequestParam(value = "download", required = false, defaultValue = "1") Integer download,
+                          @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                          @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                          @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods,
+                          WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) {
+        Timer.Sample sample = metrics.start();
+        metrics.bind("toWord", "html");
+        try {
+            OperationFilter filter = OperationFilter.of(tags, paths, methods);
+            generateModelData(model, url, download, filter);
+            // 页面上的下载链接带上同样的筛选条件
+            model.addAttribute("filterQuery", filter.toQueryString());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            String etag = etag(model, DocumentVersion.pageVariant(download, model.asMap().get("url")), filter);
+            if (webRequest.checkNotModified(responseEtag(etag, MediaType.TEXT_HTML_VALUE))) {
+                return null;
+            }
+            // 与 word 视图相同的模板，直接渲染到响应
+            response.setContentType(MediaType.TEXT_HTML_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            writeDocument(etag, model, OutputFormat.DOC, response);
+            metrics.request(sample);
+        } finally {
+            metrics.unbind();
+        }
+        return null;
     }
 
-    private void generateModelData(Model model, String url, Integer download) {
+    private void generateModelData(Model model, String url, Integer download, OperationFilter filter) {
         url = StringUtils.defaultIfBlank(url, swaggerUrl);
-        Map<String, Object> result = tableService.tableList(url);
+        Map<String, Object> result = tableService.tableList(url, filter);
         model.addAttribute("url", url);
         model.addAttribute("download", download);
         model.addAllAttributes(result);
@@ -73,27 +126,112 @@ public class WordController {
     @ApiOperation(value = "将 swagger 文档一键下载为 doc 文档", notes = "", tags = {"Word"})
     @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。")})
     @RequestMapping(value = "/downloadWord", method = {RequestMethod.GET})
-    public void word(Model model, @ApiParam(value = "资源地址", required = false) @RequestParam(required = false) String url, HttpServletResponse response) {
-        generateModelData(model, url, 0);
-        writeContentToResponse(model, response);
-    }
-
-    private void writeContentToResponse(Model model, HttpServletResponse response) {
-        Context context = new Context();
-        context.setVariables(model.asMap());
-        String content = springTemplateEngine.process("word", context);
-        response.setContentType("application/octet-stream;charset=utf-8");
-        response.setCharacterEncoding("utf-8");
-        try (BufferedOutputStream bos = new BufferedOutputStream(response.getOutputStream())) {
-            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode("toWord.doc", "utf-8"));
-            byte[] bytes = content.getBytes();
-            bos.write(bytes, 0, bytes.length);
-            bos.flush();
+    public void word(Model model, @ApiParam(value = "资源地址", required = false) @RequestParam(required = false) String url,
+                     @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                     @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                     @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                     @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods,
+                     WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        Timer.Sample sample = metrics.start();
+        metrics.bind("downloadWord", outputFormat.getExtension());
+        try {
+            OperationFilter filter = OperationFilter.of(tags, paths, methods);
+            generateModelData(model, url, 0, filter);
+            // 文档没有变化时返回 304，不再渲染
+            String etag = etag(model, outputFormat.getExtension(), filter);
+            if (!webRequest.checkNotModified(responseEtag(etag, outputFormat.getContentType()))) {
+                writeContentToResponse(model, outputFormat, filter, request, response);
+            }
+            metrics.request(sample);
+        } finally {
+            metrics.unbind();
+        }
+    }
+
+    private void writeContentToResponse(Model model, OutputFormat format, OperationFilter filter,
+                                        HttpServletRequest request, HttpServletResponse response) {
+        String etag = etag(model, format.getExtension(), filter);
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, responseEtag(etag, format.getContentType()));
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setContentType(format.getContentType());
+        if (format == OutputFormat.DOC) {
+            response.setCharacterEncoding("utf-8");
+        }
+        try {
+            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode("toWord." + format.getExtension(), "utf-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        writeDocument(etag, model, format, response);
+    }
+
+    /**
+     * 命中渲染结果缓存时直接输出，否则渲染，同一文档同时只渲染一次
+     */
+    private void writeDocument(String etag, Model model, OutputFormat format, HttpServletResponse response) {
+        try {
+            OutputCache.Entry cached = etag == null ? null : outputCache.get(etag, format);
+            if (cached != null) {
+                try {
+                    writeCached(cached, response);
+                } finally {
+                    cached.close();
+                }
+                return;
+            }
+            // 不设置 Content-Length，超出缓冲区后以 chunked 方式输出
+            try (OutputStream out = response.getOutputStream()) {
+                renderService.render(etag, model.asMap(), format, stats -> groupHeaders(stats, response), out);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 磁盘上的文档从命中时打开的文件通过 FileChannel.transferTo 写到响应中，之后被淘汰或被重新渲染的结果替换也能完整输出。
+     * 不使用 Tomcat 的 sendfile，sendfile 在返回后按文件名重新打开，可能读到已删除或已替换的文件
+     */
+    private void writeCached(OutputCache.Entry cached, HttpServletResponse response) throws IOException {
+        response.setHeader("X-Output-Cache", cached.getFile() == null ? "memory" : "disk");
+        response.setContentLengthLong(cached.getLength());
+        metrics.outputBytes(cached.getLength());
+        Timer.Sample sample = metrics.start();
+        try (OutputStream out = response.getOutputStream()) {
+            if (cached.getContent() != null) {
+                out.write(cached.getContent());
+            } else {
+                FileChannel channel = cached.getChannel();
+                WritableByteChannel target = Channels.newChannel(out);
+                long size = cached.getLength();
+                for (long position = 0; position < size; ) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+        metrics.stage("write", sample);
+    }
+
+    /**
+     * 开启了 server.compression 且类型在 mime-types 中，响应可能被 Tomcat 压缩
+     */
+    private boolean isCompressible(String contentType) {
+        Compression compression = serverProperties.getCompression();
+        if (!compression.getEnabled()) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        for (String mimeType : compression.getMimeTypes()) {
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType(mimeType))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 将 swagger json文件转换成 word文档并下载
      *
@@ -105,9 +243,23 @@ public class WordController {
     @ApiOperation(value = "将 swagger json文件转换成 word文档并下载", notes = "", tags = {"Word"})
     @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。")})
     @RequestMapping(value = "/fileToWord", method = {RequestMethod.POST})
-    public void getWord(Model model, @ApiParam("swagger json file") @Valid @RequestPart("jsonFile") MultipartFile jsonFile, HttpServletResponse response) {
-        generateModelData(model, jsonFile);
-        writeContentToResponse(model, response);
+    public void getWord(Model model, @ApiParam("swagger json file") @Valid @RequestPart("jsonFile") MultipartFile jsonFile,
+                        @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                        @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                        @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                        @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods,
+                        HttpServletRequest request, HttpServletResponse response) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        Timer.Sample sample = metrics.start();
+        metrics.bind("fileToWord", outputFormat.getExtension());
+        try {
+            OperationFilter filter = OperationFilter.of(tags, paths, methods);
+            generateModelData(model, jsonFile, filter);
+            writeContentToResponse(model, outputFormat, filter, request, response);
+            metrics.request(sample);
+        } finally {
+            metrics.unbind();
+        }
     }
 
     /**
@@ -121,20 +273,144 @@ public class WordController {
     @ApiOperation(value = "将 swagger json字符串转换成 word文档并下载", notes = "", tags = {"Word"})
     @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。")})
     @RequestMapping(value = "/strToWord", method = {RequestMethod.POST})
-    public void getWord(Model model, @ApiParam("swagger json string") @Valid @RequestParam("jsonStr") String jsonStr, HttpServletResponse response) {
-        generateModelData(model, jsonStr);
-        writeContentToResponse(model, response);
+    public void getWord(Model model, @ApiParam("swagger json string") @Valid @RequestParam("jsonStr") String jsonStr,
+                        @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                        @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                        @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                        @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods,
+                        HttpServletRequest request, HttpServletResponse response) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        Timer.Sample sample = metrics.start();
+        metrics.bind("strToWord", outputFormat.getExtension());
+        try {
+            OperationFilter filter = OperationFilter.of(tags, paths, methods);
+            generateModelData(model, jsonStr, filter);
+            writeContentToResponse(model, outputFormat, filter, request, response);
+            metrics.request(sample);
+        } finally {
+            metrics.unbind();
+        }
+    }
+
+    /**
+     * 将 application/json 请求体中的 swagger json 转换成 word文档并下载，请求体直接流式解析，
+     * 支持 Content-Encoding: gzip
+     *
+     * @param model
+     * @param request
+     * @param response
+     * @return
+     */
+    @ApiOperation(value = "将 swagger json 请求体转换成 word文档并下载", notes = "Content-Type 为 application/json，请求体可用 gzip 压缩并设置 Content-Encoding: gzip", tags = {"Word"})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。")})
+    @RequestMapping(value = "/strToWord", method = {RequestMethod.POST}, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void getWord(Model model, HttpServletRequest request,
+                        @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                        @ApiParam(value = "只转换这些标签的接口", required = false) @RequestParam(value = "tags", required = false) List<String> tags,
+                        @ApiParam(value = "只转换这些路径前缀或通配符（如 /pet/**）下的接口", required = false) @RequestParam(value = "paths", required = false) List<String> paths,
+                        @ApiParam(value = "只转换这些请求方式的接口", required = false) @RequestParam(value = "methods", required = false) List<String> methods,
+                        HttpServletResponse response) throws IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !"gzip".equalsIgnoreCase(encoding) && !"identity".equalsIgnoreCase(encoding)) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "unsupported Content-Encoding: " + encoding);
+            return;
+        }
+        OutputFormat outputFormat = OutputFormat.of(format);
+        Timer.Sample sample = metrics.start();
+        metrics.bind("strToWord", outputFormat.getExtension());
+        try {
+            OperationFilter filter = OperationFilter.of(tags, paths, methods);
+            // gzip 按文件头识别并解压
+            try (InputStream in = request.getInputStream()) {
+                generateModelData(model, in, filter);
+            }
+            writeContentToResponse(model, outputFormat, filter, request, response);
+            metrics.request(sample);
+        } finally {
+            metrics.unbind();
+        }
+    }
+
+    /**
+     * 批量将 swagger 文档转换成 word 文档并打包为 zip 下载
+     *
+     * @param urls      需要转换成 word 文档的资源地址
+     * @param jsonFiles 需要转换成 word 文档的swagger json文件
+     * @param response
+     */
+    @ApiOperation(value = "批量将 swagger 文档转换成 word 文档并打包为 zip 下载", notes = "zip 中的 manifest.json 记录每个资源的转换结果", tags = {"Word"})
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "请求成功。")})
+    @RequestMapping(value = "/batchToWord", method = {RequestMethod.POST})
+    public void batchWord(@ApiParam(value = "资源地址列表", required = false) @RequestParam(value = "urls", required = false) List<String> urls,
+                          @ApiParam(value = "swagger json文件列表", required = false) @RequestPart(value = "jsonFiles", required = false) List<MultipartFile> jsonFiles,
+                          @ApiParam(value = "文档格式：doc 或 docx", required = false) @RequestParam(value = "format", required = false, defaultValue = "doc") String format,
+                          HttpServletResponse response) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        Timer.Sample sample = metrics.start();
+        metrics.bind("batchToWord", outputFormat.getExtension());
+        response.setContentType("application/zip");
+        try (OutputStream out = response.getOutputStream()) {
+            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode("toWord.zip", "utf-8"));
+            batchService.convert(urls, jsonFiles, outputFormat, out);
+            metrics.request(sample);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            metrics.unbind();
+        }
+    }
+
+    /**
+     * 强 ETag，由 Swagger 文档内容的摘要、模板和程序版本以及输出格式计算，也是渲染结果缓存的 key，解析失败时返回 null
+     *
+     * @param model
+     * @param variant 输出格式，页面还包括 url 和 download 参数
+     * @param filter  接口筛选条件
+     * @return
+     */
+    private String etag(Model model, String variant, OperationFilter filter) {
+        return documentVersion.etag(model.asMap().get("specHash"), variant, filter);
+    }
+
+    /**
+     * 响应头中的 ETag。Tomcat 压缩时不改变 ETag，同一个强 ETag 不能同时用于 gzip 和未压缩的响应，
+     * 可能被压缩的类型改用弱 ETag；If-None-Match 按弱比较，之前拿到强 ETag 的客户端仍然可以得到 304
+     */
+    private String responseEtag(String etag, String contentType) {
+        return etag != null && isCompressible(contentType) ? "W/" + etag : etag;
+    }
+
+    /**
+     * 增量渲染分组的复用情况
+     */
+    private void groupHeaders(GroupStats stats, HttpServletResponse response) {
+        if (stats != null) {
+            response.setHeader("X-Groups-Reused", String.valueOf(stats.getReused()));
+            response.setHeader("X-Groups-Rebuilt", String.valueOf(stats.getRebuilt()));
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public void illegalArgument(IllegalArgumentException e, HttpServletResponse response) throws IOException {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+    }
+
+    private void generateModelData(Model model, String jsonStr, OperationFilter filter) {
+        Map<String, Object> result = tableService.tableListFromString(jsonStr, filter);
+        model.addAttribute("url", "http://");
+        model.addAttribute("download", 0);
+        model.addAllAttributes(result);
     }
 
-    private void generateModelData(Model model, String jsonStr) {
-        Map<String, Object> result = tableService.tableListFromString(jsonStr);
+    private void generateModelData(Model model, InputStream in, OperationFilter filter) {
+        Map<String, Object> result = tableService.tableListFromBody(in, filter);
         model.addAttribute("url", "http://");
         model.addAttribute("download", 0);
         model.addAllAttributes(result);
     }
 
-    private void generateModelData(Model model, MultipartFile jsonFile) {
-        Map<String, Object> result = tableService.tableList(jsonFile);
+    private void generateModelData(Model model, MultipartFile jsonFile, OperationFilter filter) {
+        Map<String, Object> result = tableService.tableList(jsonFile, filter);
         model.addAttribute("url", "http://");
         model.addAttribute("download", 0);
         model.addAllAttributes(result);
@@ -0,0 +1,167 @@
+package org.word.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.word.utils.SingleFlight;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 转换过程的指标，通过 /actuator/metrics 和 /actuator/prometheus 暴露：
+ * <ul>
+ * <li>swagger2word.stage：各阶段耗时，stage 为 fetch、parse、definitions、tables、examples、groups（增量渲染分组）、
+ * render（渲染到临时文件）、write（写到客户端）</li>
+ * <li>swagger2word.request：接口总耗时</li>
+ * <li>swagger2word.spec.bytes / paths / definitions / depth：文档大小、接口数、模型数、模型展开后的最大层数</li>
+ * <li>swagger2word.output.bytes：输出文档大小</li>
+ * <li>swagger2word.fetch.bytes：从上游读取的字节数（压缩时为解压前的大小）</li>
+ * <li>swagger2word.fetch.aborted：提前断开的获取次数，reason 为 content-type 或 too-large</li>
+ * <li>swagger2word.coalesce.calls / waiters / ratio：相同请求合并的调用数（role 为 leader 或 waiter）、
+ * 当前等待数和合并比例，operation 为 fetch 或 render，不带 endpoint 和 format 标签</li>
+ * </ul>
+ * 所有指标都带 endpoint 和 format 标签，由调用方通过 {@link #bind(String, String)} 绑定到当前线程，
+ * 结束后调用 {@link #unbind()}；没有绑定的线程中记录的指标标记为 none。
+ * 绑定时还可以传入阶段监听，当前线程每完成一个阶段回调一次，用于异步任务的进度。
+ *
+ * @author kevin
+ */
+@Component
+public class ConversionMetrics {
+
+    private static final Tags NONE = Tags.of("endpoint", "none", "format", "none");
+
+    private final ThreadLocal<Tags> boundTags = new ThreadLocal<>();
+
+    private final ThreadLocal<ObjLongConsumer<String>> boundListener = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public ConversionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 绑定接口名和输出格式，之后当前线程记录的指标都带上这两个标签
+     */
+    public void bind(String endpoint, String format) {
+        boundTags.set(Tags.of("endpoint", endpoint, "format", format));
+    }
+
+    /**
+     * 同 {@link #bind(String, String)}，当前线程每完成一个阶段时以阶段名和耗时（纳秒）回调 listener
+     */
+    public void bind(String endpoint, String format, ObjLongConsumer<String> listener) {
+        bind(endpoint, format);
+        boundListener.set(listener);
+    }
+
+    public void unbind() {
+        boundTags.remove();
+        boundListener.remove();
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stage(String stage, Timer.Sample sample) {
+        long nanos = sample.stop(registry.timer("swagger2word.stage", tags().and("stage", stage)));
+        notifyStage(stage, nanos);
+    }
+
+    /**
+     * 记录累加得到的阶段耗时，用于并行执行、无法用一个 Sample 计时的阶段
+     */
+    public void stage(String stage, long nanos) {
+        registry.timer("swagger2word.stage", tags().and("stage", stage)).record(nanos, TimeUnit.NANOSECONDS);
+        notifyStage(stage, nanos);
+    }
+
+    private void notifyStage(String stage, long nanos) {
+        ObjLongConsumer<String> listener = boundListener.get();
+        if (listener != null) {
+            listener.accept(stage, nanos);
+        }
+    }
+
+    public void request(Timer.Sample sample) {
+        sample.stop(registry.timer("swagger2word.request", tags()));
+    }
+
+    public void specBytes(long bytes) {
+        summary("swagger2word.spec.bytes", "bytes").record(bytes);
+    }
+
+    public void specPaths(int paths) {
+        summary("swagger2word.spec.paths", null).record(paths);
+    }
+
+    public void specDefinitions(int definitions) {
+        summary("swagger2word.spec.definitions", null).record(definitions);
+    }
+
+    public void specDepth(int depth) {
+        summary("swagger2word.spec.depth", null).record(depth);
+    }
+
+    public void outputBytes(long bytes) {
+        summary("swagger2word.output.bytes", "bytes").record(bytes);
+    }
+
+    public void fetchBytes(long bytes) {
+        summary("swagger2word.fetch.bytes", "bytes").record(bytes);
+    }
+
+    public void fetchAborted(String reason) {
+        registry.counter("swagger2word.fetch.aborted", tags().and("reason", reason)).increment();
+    }
+
+    /**
+     * 注册合并调用的指标
+     */
+    public void coalescing(SingleFlight<?> flight) {
+        Tags tags = Tags.of("operation", flight.getOperation());
+        FunctionCounter.builder("swagger2word.coalesce.calls", flight, SingleFlight::getLeaders)
+            .tags(tags.and("role", "leader")).register(registry);
+        FunctionCounter.builder("swagger2word.coalesce.calls", flight, SingleFlight::getFollowers)
+            .tags(tags.and("role", "waiter")).register(registry);
+        Gauge.builder("swagger2word.coalesce.waiters", flight, SingleFlight::getWaiting).tags(tags).register(registry);
+        Gauge.builder("swagger2word.coalesce.ratio", flight, SingleFlight::getCoalescingRatio).tags(tags).register(registry);
+    }
+
+    private DistributionSummary summary(String name, String baseUnit) {
+        return DistributionSummary.builder(name).baseUnit(baseUnit).tags(tags()).register(registry);
+    }
+
+    private Tags tags() {
+        Tags tags = boundTags.get();
+        return tags == null ? NONE : tags;
+    }
+
+    /**
+     * 字符串按 UTF-8 编码后的字节数，不生成字节数组
+     */
+    public static long utf8Length(CharSequence s) {
+        long bytes = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
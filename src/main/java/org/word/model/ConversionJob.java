@@ -0,0 +1,189 @@
+package org.word.model;
+
+import org.word.parser.OperationFilter;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个异步转换任务及其进度。状态只由执行任务的线程修改，可以被轮询接口同时读取
+ *
+ * @author kevin
+ */
+public class ConversionJob {
+
+    private final String id = UUID.randomUUID().toString();
+
+    /**
+     * 去重用的 key，相同 key 的任务执行中时再次提交直接返回该任务
+     */
+    private final String key;
+
+    /**
+     * 资源地址或上传的文件名
+     */
+    private final String source;
+
+    /**
+     * 上传或请求体中的 Swagger json 暂存的文件，资源地址为 null
+     */
+    private final File spec;
+
+    private final OutputFormat format;
+    private final OperationFilter filter;
+    private final JobPriority priority;
+
+    /**
+     * 提交顺序，同一优先级先提交的先执行
+     */
+    private final long sequence;
+
+    private final long submittedAt = System.currentTimeMillis();
+
+    /**
+     * 提交次数，包括执行中被重复提交的次数
+     */
+    private final AtomicInteger submissions = new AtomicInteger(1);
+
+    /**
+     * 已完成的阶段及耗时（毫秒），按完成顺序
+     */
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+
+    private volatile JobState state = JobState.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String message;
+    private volatile File result;
+    private volatile long resultBytes;
+
+    public ConversionJob(String key, String source, File spec, OutputFormat format, OperationFilter filter,
+                         JobPriority priority, long sequence) {
+        this.key = key;
+        this.source = source;
+        this.spec = spec;
+        this.format = format;
+        this.filter = filter;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public File getSpec() {
+        return spec;
+    }
+
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    public OperationFilter getFilter() {
+        return filter;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public File getResult() {
+        return result;
+    }
+
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return state == JobState.DONE || state == JobState.FAILED;
+    }
+
+    public void attach() {
+        submissions.incrementAndGet();
+    }
+
+    public void start() {
+        startedAt = System.currentTimeMillis();
+        state = JobState.RUNNING;
+    }
+
+    /**
+     * 记录完成的阶段，同名阶段（如多次渲染）累加
+     */
+    public synchronized void stage(String stage, long nanos) {
+        stages.merge(stage, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+    }
+
+    public void complete(File result, long bytes) {
+        this.result = result;
+        this.resultBytes = bytes;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = JobState.DONE;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = JobState.FAILED;
+    }
+
+    /**
+     * 轮询接口返回的状态
+     */
+    public synchronized Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("state", state);
+        status.put("source", source);
+        status.put("format", format.getExtension());
+        status.put("filter", filter.toString());
+        status.put("priority", priority);
+        status.put("submissions", submissions.get());
+        status.put("submittedAt", Instant.ofEpochMilli(submittedAt).toString());
+        if (startedAt > 0) {
+            status.put("startedAt", Instant.ofEpochMilli(startedAt).toString());
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            status.put("elapsedMillis", end - startedAt);
+        }
+        status.put("stages", new LinkedHashMap<>(stages));
+        if (finishedAt > 0) {
+            status.put("finishedAt", Instant.ofEpochMilli(finishedAt).toString());
+        }
+        if (state == JobState.DONE) {
+            status.put("resultBytes", resultBytes);
+        }
+        status.put("message", message);
+        return status;
+    }
+}
@@ -0,0 +1,22 @@
+package org.word.model;
+
+import lombok.Data;
+
+/**
+ * 增量渲染时复用和重新渲染的分组数
+ *
+ * @author kevin
+ */
+@Data
+public class GroupStats {
+
+    /**
+     * 直接使用缓存片段的分组数
+     */
+    private final int reused;
+
+    /**
+     * 重新渲染的分组数
+     */
+    private final int rebuilt;
+}
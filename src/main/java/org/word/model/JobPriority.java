@@ -0,0 +1,32 @@
+package org.word.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 异步转换任务的优先级，优先级高的先执行，同一优先级按提交顺序执行
+ *
+ * @author kevin
+ */
+public enum JobPriority {
+
+    HIGH,
+
+    NORMAL,
+
+    LOW;
+
+    /**
+     * 不区分大小写，为空时返回 NORMAL
+     */
+    public static JobPriority of(String priority) {
+        if (StringUtils.isBlank(priority)) {
+            return NORMAL;
+        }
+        for (JobPriority jobPriority : values()) {
+            if (jobPriority.name().equalsIgnoreCase(priority.trim())) {
+                return jobPriority;
+            }
+        }
+        throw new IllegalArgumentException("unsupported priority: " + priority);
+    }
+}
@@ -0,0 +1,29 @@
+package org.word.model;
+
+/**
+ * 异步转换任务的状态
+ *
+ * @author kevin
+ */
+public enum JobState {
+
+    /**
+     * 排队等待执行
+     */
+    QUEUED,
+
+    /**
+     * 正在获取、解析或渲染
+     */
+    RUNNING,
+
+    /**
+     * 已完成，可以下载结果
+     */
+    DONE,
+
+    /**
+     * 获取、解析或渲染失败
+     */
+    FAILED
+}
@@ -43,7 +43,7 @@ public class ModelAttr implements Serializable {
     private List<ModelAttr> properties = new ArrayList<>();
 
     /**
-     * 是否加载完成，避免循环引用
+     * 引用的模型因循环引用或超出展开限制没有展开时，记录模型名，文档中显示为“参见 Xxx”
      */
-    private boolean isCompleted = false;
+    private String seeAlso;
 }
@@ -0,0 +1,53 @@
+package org.word.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 文档输出格式
+ *
+ * @author kevin
+ */
+public enum OutputFormat {
+
+    /**
+     * word.html 渲染结果，以 .doc 保存
+     */
+    DOC("doc", "application/octet-stream;charset=utf-8"),
+
+    /**
+     * Office Open XML 文档
+     */
+    DOCX("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+
+    private final String extension;
+
+    private final String contentType;
+
+    OutputFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 按扩展名查找，为空时返回 DOC
+     */
+    public static OutputFormat of(String format) {
+        if (StringUtils.isBlank(format)) {
+            return DOC;
+        }
+        for (OutputFormat outputFormat : values()) {
+            if (outputFormat.extension.equalsIgnoreCase(format.trim())) {
+                return outputFormat;
+            }
+        }
+        throw new IllegalArgumentException("unsupported format: " + format);
+    }
+}
@@ -0,0 +1,58 @@
+package org.word.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 表格中的一行参数或返回属性，编号和缩进层级已经算好，模板直接循环输出
+ *
+ * @author kevin
+ */
+@Data
+public class Row implements Serializable {
+
+    private static final long serialVersionUID = 3125186027361528114L;
+
+    /**
+     * 带编号的名称，如 1.2.name
+     */
+    private String name;
+
+    /**
+     * 数据类型
+     */
+    private String type;
+
+    /**
+     * 参数类型，只有请求参数第一层有值
+     */
+    private String paramType;
+
+    /**
+     * 是否必填
+     */
+    private Boolean require;
+
+    /**
+     * 说明
+     */
+    private String description;
+
+    /**
+     * 缩进层级，0 表示不缩进
+     */
+    private int level;
+
+    public Row() {
+    }
+
+    public Row(String name, String type, String paramType, Boolean require, String description, int level) {
+        this.name = name;
+        this.type = type;
+        this.paramType = paramType;
+        this.require = require;
+        this.description = description;
+        this.level = level;
+    }
+}
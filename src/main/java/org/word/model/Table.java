@@ -53,6 +53,16 @@ public class Table {
      */
     private List<Response> responseList;
 
+    /**
+     * 请求参数行，已展开嵌套属性
+     */
+    private List<Row> requestRows;
+
+    /**
+     * 返回属性行，已展开嵌套属性
+     */
+    private List<Row> responseRows;
+
     /**
      * 请求参数
      */
@@ -0,0 +1,177 @@
+package org.word.parser;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * 只转换部分接口：按标签、路径前缀或通配符、请求方式筛选，解析 paths 时直接跳过不需要的路径。
+ * 各条件之间为“且”，同一条件的多个值之间为“或”，条件为空表示不限制。
+ *
+ * @author kevin
+ */
+public class OperationFilter {
+
+    /**
+     * 不做筛选
+     */
+    public static final OperationFilter ALL = new OperationFilter(Collections.emptySet(),
+        Collections.emptyList(), Collections.emptySet());
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final Collection<String> tags;
+
+    /**
+     * 路径前缀，或含 * ? 的 Ant 风格通配符，例如 /pet/**
+     */
+    private final List<String> paths;
+
+    /**
+     * 小写的请求方式
+     */
+    private final Collection<String> methods;
+
+    private OperationFilter(Collection<String> tags, List<String> paths, Collection<String> methods) {
+        this.tags = tags;
+        this.paths = paths;
+        this.methods = methods;
+    }
+
+    /**
+     * 参数均为空时返回 ALL
+     *
+     * @param tags    标签
+     * @param paths   路径前缀或通配符
+     * @param methods 请求方式，不区分大小写
+     * @return
+     */
+    public static OperationFilter of(List<String> tags, List<String> paths, List<String> methods) {
+        TreeSet<String> tagSet = normalize(tags, false);
+        TreeSet<String> methodSet = normalize(methods, true);
+        List<String> pathList = new ArrayList<>(normalize(paths, false));
+        if (tagSet.isEmpty() && pathList.isEmpty() && methodSet.isEmpty()) {
+            return ALL;
+        }
+        return new OperationFilter(tagSet, pathList, methodSet);
+    }
+
+    private static TreeSet<String> normalize(List<String> values, boolean lowerCase) {
+        TreeSet<String> result = new TreeSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (StringUtils.isNotBlank(value)) {
+                    value = value.trim();
+                    result.add(lowerCase ? value.toLowerCase(Locale.ROOT) : value);
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * 路径是否需要转换，不需要时整个路径跳过不解析
+     */
+    public boolean matchesPath(String url) {
+        if (paths.isEmpty()) {
+            return true;
+        }
+        for (String path : paths) {
+            if (PATH_MATCHER.isPattern(path) ? PATH_MATCHER.match(path, url) : url.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matchesMethod(String method) {
+        return methods.isEmpty() || methods.contains(method.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 接口的任一标签在筛选的标签中即可
+     */
+    public boolean matchesTags(List<String> operationTags) {
+        if (tags.isEmpty()) {
+            return true;
+        }
+        if (operationTags != null) {
+            for (String tag : operationTags) {
+                if (tags.contains(tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否按标签筛选
+     */
+    public boolean hasTags() {
+        return !tags.isEmpty();
+    }
+
+    /**
+     * 接口标签中第一个在筛选标签中的，不按标签筛选或都不符合时返回 null
+     */
+    public String matchedTag(List<String> operationTags) {
+        if (!tags.isEmpty() && operationTags != null) {
+            for (String tag : operationTags) {
+                if (tags.contains(tag)) {
+                    return tag;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 筛选条件的规范形式，相同条件的 key 相同，用于缓存和 ETag
+     */
+    public String getKey() {
+        if (isAll()) {
+            return "";
+        }
+        return "tags=" + StringUtils.join(tags, ',') + "&paths=" + StringUtils.join(paths, ',')
+            + "&methods=" + StringUtils.join(methods, ',');
+    }
+
+    /**
+     * 追加到链接上的查询参数，以 & 开头，不筛选时为空字符串
+     */
+    public String toQueryString() {
+        StringBuilder sb = new StringBuilder();
+        appendParam(sb, "tags", tags);
+        appendParam(sb, "paths", paths);
+        appendParam(sb, "methods", methods);
+        return sb.toString();
+    }
+
+    private static void appendParam(StringBuilder sb, String name, Collection<String> values) {
+        for (String value : values) {
+            try {
+                sb.append('&').append(name).append('=').append(URLEncoder.encode(value, "utf-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "all" : getKey();
+    }
+}
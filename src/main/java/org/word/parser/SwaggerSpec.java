@@ -0,0 +1,155 @@
+package org.word.parser;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式解析得到的 Swagger 文档，只保留生成文档需要的字段
+ *
+ * @author kevin
+ */
+@Data
+public class SwaggerSpec {
+
+    /**
+     * 文档信息（info 节点）
+     */
+    private Object info;
+
+    /**
+     * 接口列表，按文档中的顺序
+     */
+    private List<Operation> operations = new ArrayList<>();
+
+    /**
+     * 模型定义，key 为模型名
+     */
+    private Map<String, Definition> definitions = new LinkedHashMap<>();
+
+    /**
+     * 一个请求路径，只保留第一种请求方式的内容
+     */
+    @Data
+    public static class Operation {
+
+        /**
+         * 请求路径
+         */
+        private String url;
+
+        /**
+         * 请求方式，类似为 get,post,delete,put 这样
+         */
+        private String requestType;
+
+        /**
+         * 标签
+         */
+        private List<String> tags;
+
+        /**
+         * 按标签筛选时符合条件的第一个标签，作为大标题；不筛选时为 null，用第一个标签
+         */
+        private String matchedTag;
+
+        /**
+         * 方法说明
+         */
+        private String summary;
+
+        /**
+         * 请求参数格式
+         */
+        private List<String> consumes;
+
+        /**
+         * 返回参数格式
+         */
+        private List<String> produces;
+
+        /**
+         * 请求参数
+         */
+        private List<Parameter> parameters;
+
+        /**
+         * 返回体，只保留状态码 200，未声明 responses 时为 null
+         */
+        private Map<String, ResponseSpec> responses;
+    }
+
+    /**
+     * 请求参数
+     */
+    @Data
+    public static class Parameter {
+
+        private String name;
+
+        private String in;
+
+        private String description;
+
+        private String type;
+
+        private String format;
+
+        private Boolean required;
+
+        private String example;
+
+        private Schema schema;
+
+        private Schema items;
+    }
+
+    /**
+     * 返回值
+     */
+    @Data
+    public static class ResponseSpec {
+
+        private String description;
+
+        private Schema schema;
+    }
+
+    /**
+     * 模型定义
+     */
+    @Data
+    public static class Definition {
+
+        private String title;
+
+        private String description;
+
+        /**
+         * 属性列表，未声明 properties 时为 null
+         */
+        private Map<String, Schema> properties;
+    }
+
+    /**
+     * 类型描述，用于属性、body 参数和返回值
+     */
+    @Data
+    public static class Schema {
+
+        private String type;
+
+        private String format;
+
+        private String ref;
+
+        private String originalRef;
+
+        private String description;
+
+        private Schema items;
+    }
+}
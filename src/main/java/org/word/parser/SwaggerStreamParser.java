@@ -0,0 +1,393 @@
+package org.word.parser;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+import org.word.parser.SwaggerSpec.Definition;
+import org.word.parser.SwaggerSpec.Operation;
+import org.word.parser.SwaggerSpec.Parameter;
+import org.word.parser.SwaggerSpec.ResponseSpec;
+import org.word.parser.SwaggerSpec.Schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 Jackson JsonParser 的 Swagger 流式解析器，按 token 读取 paths 和 definitions，
+ * 不再把整个文档反序列化成 Map 树
+ *
+ * @author kevin
+ */
+public class SwaggerStreamParser {
+
+    private SwaggerStreamParser() {
+    }
+
+    /**
+     * 解析 Swagger 文档，parser 需由 JsonUtils 创建以便读取 info 等小节点
+     *
+     * @param p
+     * @return
+     * @throws IOException
+     */
+    public static SwaggerSpec parse(JsonParser p) throws IOException {
+        return parse(p, OperationFilter.ALL);
+    }
+
+    /**
+     * 解析 Swagger 文档，只保留筛选出的接口，其余路径直接跳过
+     *
+     * @param p
+     * @param filter
+     * @return
+     * @throws IOException
+     */
+    public static SwaggerSpec parse(JsonParser p, OperationFilter filter) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(p, "swagger document must be a JSON object");
+        }
+        SwaggerSpec spec = new SwaggerSpec();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "info":
+                    spec.setInfo(p.readValueAs(Object.class));
+                    break;
+                case "paths":
+                    spec.setOperations(readPaths(p, filter));
+                    break;
+                case "definitions":
+                    spec.setDefinitions(readDefinitions(p));
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return spec;
+    }
+
+    private static List<Operation> readPaths(JsonParser p, OperationFilter filter) throws IOException {
+        List<Operation> operations = new ArrayList<>();
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return operations;
+        }
+        expect(p, JsonToken.START_OBJECT);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String url = p.getCurrentName();
+            p.nextToken();
+            expect(p, JsonToken.START_OBJECT);
+            if (!filter.matchesPath(url)) {
+                p.skipChildren();
+                continue;
+            }
+            Operation operation = readPathItem(p, url, filter);
+            if (operation != null) {
+                operations.add(operation);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * 读取一个请求路径，不管有几种请求方式，都只解析第一种；
+     * 筛选时只考虑请求方式和标签都符合条件的接口，解析其中第一个，都不符合时返回 null
+     */
+    private static Operation readPathItem(JsonParser p, String url, OperationFilter filter) throws IOException {
+        List<String> methods = new ArrayList<>();
+        Operation operation = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String method = p.getCurrentName();
+            p.nextToken();
+            if (!filter.matchesMethod(method)) {
+                p.skipChildren();
+                continue;
+            }
+            if (operation == null) {
+                expect(p, JsonToken.START_OBJECT);
+                Operation candidate = readOperation(p);
+                if (!filter.matchesTags(candidate.getTags())) {
+                    continue;
+                }
+                candidate.setMatchedTag(filter.matchedTag(candidate.getTags()));
+                operation = candidate;
+            } else if (filter.hasTags()) {
+                // 后面的请求方式不解析，只读标签判断是否列入请求方式
+                if (p.getCurrentToken() != JsonToken.START_OBJECT || !filter.matchesTags(readTags(p))) {
+                    p.skipChildren();
+                    continue;
+                }
+            } else {
+                p.skipChildren();
+            }
+            methods.add(method);
+        }
+        if (operation == null) {
+            if (filter.isAll()) {
+                throw new JsonParseException(p, "path " + url + " has no operation");
+            }
+            return null;
+        }
+        operation.setUrl(url);
+        operation.setRequestType(StringUtils.join(methods, ","));
+        return operation;
+    }
+
+    /**
+     * 只读取接口的标签，跳过其他字段
+     */
+    private static List<String> readTags(JsonParser p) throws IOException {
+        List<String> tags = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            if ("tags".equals(field)) {
+                tags = readStringList(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return tags;
+    }
+
+    private static Operation readOperation(JsonParser p) throws IOException {
+        Operation operation = new Operation();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "tags":
+                    operation.setTags(readStringList(p));
+                    break;
+                case "summary":
+                    operation.setSummary(readString(p));
+                    break;
+                case "consumes":
+                    operation.setConsumes(readStringList(p));
+                    break;
+                case "produces":
+                    operation.setProduces(readStringList(p));
+                    break;
+                case "parameters":
+                    operation.setParameters(readParameters(p));
+                    break;
+                case "responses":
+                    operation.setResponses(readResponses(p));
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return operation;
+    }
+
+    private static List<Parameter> readParameters(JsonParser p) throws IOException {
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(p, JsonToken.START_ARRAY);
+        List<Parameter> parameters = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            expect(p, JsonToken.START_OBJECT);
+            parameters.add(readParameter(p));
+        }
+        return parameters;
+    }
+
+    private static Parameter readParameter(JsonParser p) throws IOException {
+        Parameter parameter = new Parameter();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "name":
+                    parameter.setName(readString(p));
+                    break;
+                case "in":
+                    parameter.setIn(readString(p));
+                    break;
+                case "description":
+                    parameter.setDescription(readString(p));
+                    break;
+                case "type":
+                    parameter.setType(readString(p));
+                    break;
+                case "format":
+                    parameter.setFormat(readString(p));
+                    break;
+                case "required":
+                    parameter.setRequired((Boolean)p.readValueAs(Object.class));
+                    break;
+                case "x-example":
+                    parameter.setExample(readString(p));
+                    break;
+                case "schema":
+                    parameter.setSchema(readSchema(p));
+                    break;
+                case "items":
+                    parameter.setItems(readSchema(p));
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return parameter;
+    }
+
+    /**
+     * 只保留状态码 200 的返回值，其余状态码跳过
+     */
+    private static Map<String, ResponseSpec> readResponses(JsonParser p) throws IOException {
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(p, JsonToken.START_OBJECT);
+        Map<String, ResponseSpec> responses = new LinkedHashMap<>(2);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String code = p.getCurrentName();
+            if (p.nextToken() == JsonToken.START_OBJECT && "200".equals(code)) {
+                ResponseSpec response = new ResponseSpec();
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.getCurrentName();
+                    p.nextToken();
+                    if ("description".equals(field)) {
+                        response.setDescription(readString(p));
+                    } else if ("schema".equals(field)) {
+                        response.setSchema(readSchema(p));
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                responses.put(code, response);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return responses;
+    }
+
+    private static Map<String, Definition> readDefinitions(JsonParser p) throws IOException {
+        Map<String, Definition> definitions = new LinkedHashMap<>(256);
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return definitions;
+        }
+        expect(p, JsonToken.START_OBJECT);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            expect(p, JsonToken.START_OBJECT);
+            definitions.put(name, readDefinition(p));
+        }
+        return definitions;
+    }
+
+    private static Definition readDefinition(JsonParser p) throws IOException {
+        Definition definition = new Definition();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "title":
+                    definition.setTitle(readString(p));
+                    break;
+                case "description":
+                    definition.setDescription(readString(p));
+                    break;
+                case "properties":
+                    if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+                        break;
+                    }
+                    expect(p, JsonToken.START_OBJECT);
+                    Map<String, Schema> properties = new LinkedHashMap<>();
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.getCurrentName();
+                        p.nextToken();
+                        expect(p, JsonToken.START_OBJECT);
+                        properties.put(name, readSchema(p));
+                    }
+                    definition.setProperties(properties);
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return definition;
+    }
+
+    private static Schema readSchema(JsonParser p) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        Schema schema = new Schema();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "type":
+                    schema.setType(readString(p));
+                    break;
+                case "format":
+                    schema.setFormat(readString(p));
+                    break;
+                case "$ref":
+                    schema.setRef(readString(p));
+                    break;
+                case "originalRef":
+                    schema.setOriginalRef(readString(p));
+                    break;
+                case "description":
+                    schema.setDescription(readString(p));
+                    break;
+                case "items":
+                    schema.setItems(readSchema(p));
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return schema;
+    }
+
+    private static List<String> readStringList(JsonParser p) throws IOException {
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(p, JsonToken.START_ARRAY);
+        List<String> list = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readString(p));
+        }
+        return list;
+    }
+
+    /**
+     * 读取当前值的字符串形式，null 值返回 null
+     */
+    private static String readString(JsonParser p) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return p.getText();
+        }
+        Object value = p.readValueAs(Object.class);
+        return value == null ? null : value.toString();
+    }
+
+    private static void expect(JsonParser p, JsonToken token) throws IOException {
+        if (p.getCurrentToken() != token) {
+            throw new JsonParseException(p, "expected " + token + " but was " + p.getCurrentToken());
+        }
+    }
+}
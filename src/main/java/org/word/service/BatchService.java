@@ -0,0 +1,28 @@
+package org.word.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import org.word.model.OutputFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 批量转换
+ *
+ * @author kevin
+ */
+public interface BatchService {
+
+    /**
+     * 并发转换多个 swagger 资源，每完成一个就写入 zip，最后写入 manifest.json
+     *
+     * @param urls      资源地址
+     * @param jsonFiles swagger json文件
+     * @param format    文档格式
+     * @param out       zip 输出流，调用方负责关闭
+     * @throws IOException
+     */
+    void convert(List<String> urls, List<MultipartFile> jsonFiles, OutputFormat format, OutputStream out)
+        throws IOException;
+}
@@ -0,0 +1,82 @@
+package org.word.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import org.word.model.ConversionJob;
+import org.word.model.JobPriority;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 异步转换：提交后立即返回任务，由后台线程获取、解析和渲染，结果保留一段时间供下载。
+ * 同一资源的任务执行中时再次提交返回同一个任务；排队数达到上限时抛出 JobRejectedException
+ *
+ * @author kevin
+ */
+public interface JobService {
+
+    /**
+     * 提交资源地址
+     *
+     * @param url
+     * @param format
+     * @param filter
+     * @param priority
+     * @return
+     */
+    ConversionJob submit(String url, OutputFormat format, OperationFilter filter, JobPriority priority);
+
+    /**
+     * 提交 swagger json文件，文件先暂存到磁盘
+     *
+     * @param jsonFile
+     * @param format
+     * @param filter
+     * @param priority
+     * @return
+     * @throws IOException
+     */
+    ConversionJob submit(MultipartFile jsonFile, OutputFormat format, OperationFilter filter, JobPriority priority)
+        throws IOException;
+
+    /**
+     * 提交输入流中的 swagger json，可以是 gzip 压缩的，调用方负责关闭输入流
+     *
+     * @param in
+     * @param format
+     * @param filter
+     * @param priority
+     * @return
+     * @throws IOException
+     */
+    ConversionJob submit(InputStream in, OutputFormat format, OperationFilter filter, JobPriority priority)
+        throws IOException;
+
+    /**
+     * 查找任务，不存在或已过期时返回 null
+     *
+     * @param id
+     * @return
+     */
+    ConversionJob get(String id);
+
+    /**
+     * 排队中的任务前面还有几个任务，不在排队时返回 -1
+     *
+     * @param job
+     * @return
+     */
+    int queuePosition(ConversionJob job);
+
+    /**
+     * 建议客户端轮询或重试的间隔（秒）
+     *
+     * @return
+     */
+    long getRetryAfterSeconds();
+
+    Map<String, Object> stats();
+}
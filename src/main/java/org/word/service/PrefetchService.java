@@ -0,0 +1,18 @@
+package org.word.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 定时获取 swagger.prefetch.sources 中登记的 Swagger 资源，有变化时提前渲染各格式的文档，
+ * 用户请求直接命中解析缓存和渲染结果缓存
+ *
+ * @author kevin
+ */
+public interface PrefetchService {
+
+    /**
+     * 各资源最近一次刷新的状态
+     */
+    List<Map<String, Object>> status();
+}
@@ -0,0 +1,51 @@
+package org.word.service;
+
+import org.word.model.GroupStats;
+import org.word.model.OutputFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 将解析结果渲染为 word 文档
+ *
+ * @author kevin
+ */
+public interface RenderService {
+
+    /**
+     * 渲染文档到输出流，调用方负责关闭输出流。开启虚拟线程时写入期间占用解析和渲染许可，
+     * out 应为本地文件或内存，输出到网络时使用 {@link #render(String, Map, OutputFormat, Consumer, OutputStream)}
+     *
+     * @param variables 模板变量，包含 tableMap、info、url、download
+     * @param format    DOC 按 UTF-8 渲染 word.html，DOCX 生成 Office Open XML 文档
+     * @param out
+     * @throws IOException
+     */
+    void render(Map<String, Object> variables, OutputFormat format, OutputStream out) throws IOException;
+
+    /**
+     * 渲染文档到输出流，DOC 先增量渲染分组。先渲染到文件再输出，渲染不受客户端网速影响；相同 key 的并发渲染只执行一次，
+     * 渲染完成后放入渲染结果缓存，第一个请求和渲染期间到达的相同请求各自从该文件输出。调用方负责关闭输出流
+     *
+     * @param key          相同 key 的文档内容相同，例如 ETag，为 null 时不合并也不缓存
+     * @param variables    模板变量，包含 tableMap、info、url、download
+     * @param format       输出格式
+     * @param beforeWrite  开始输出之前以分组统计回调，用于设置响应头，没有增量渲染时统计为 null
+     * @param out
+     * @throws IOException
+     */
+    void render(String key, Map<String, Object> variables, OutputFormat format, Consumer<GroupStats> beforeWrite,
+                OutputStream out) throws IOException;
+
+    /**
+     * 增量渲染 word.html：按标签分组计算摘要，内容没变的分组直接使用缓存的片段，
+     * 其余分组单独渲染后放入缓存，所有片段按顺序放入 variables 的 groups，之后渲染时直接拼接
+     *
+     * @param variables 模板变量，包含 tableMap
+     * @return 复用和重新渲染的分组数，未启用分组缓存时返回 null
+     */
+    GroupStats renderGroups(Map<String, Object> variables);
+}
@@ -1,7 +1,9 @@
 package org.word.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import org.word.parser.OperationFilter;
 
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -11,7 +13,58 @@ public interface WordService {
 
     Map<String,Object> tableList(String swaggerUrl);
 
+    /**
+     * 只转换筛选出的接口，结果按 url 和筛选条件缓存
+     *
+     * @param swaggerUrl
+     * @param filter
+     * @return
+     */
+    Map<String, Object> tableList(String swaggerUrl, OperationFilter filter);
+
+    /**
+     * 同 {@link #tableList(String, OperationFilter)}，失败时抛出 SpecLoadException 而不是返回空结果，用于需要报告失败原因的调用方
+     *
+     * @param swaggerUrl
+     * @param filter
+     * @return
+     */
+    Map<String, Object> load(String swaggerUrl, OperationFilter filter);
+
     Map<String, Object> tableListFromString(String jsonStr);
 
+    Map<String, Object> tableListFromString(String jsonStr, OperationFilter filter);
+
     Map<String, Object> tableList(MultipartFile jsonFile);
+
+    Map<String, Object> tableList(MultipartFile jsonFile, OperationFilter filter);
+
+    /**
+     * 从输入流解析 Swagger json，按 UTF-8 读取，gzip 压缩的输入自动解压，调用方负责关闭输入流
+     *
+     * @param in
+     * @return
+     */
+    Map<String, Object> tableList(InputStream in);
+
+    Map<String, Object> tableList(InputStream in, OperationFilter filter);
+
+    /**
+     * 同 {@link #tableList(InputStream, OperationFilter)}，失败时抛出 SpecLoadException
+     *
+     * @param in
+     * @param filter
+     * @return
+     */
+    Map<String, Object> load(InputStream in, OperationFilter filter);
+
+    /**
+     * 同 {@link #tableList(InputStream, OperationFilter)}，用于请求体等网络输入：先读完输入（超过
+     * swagger.convert.spool-threshold 时写入临时文件）再解析，读取期间不占用解析许可。调用方负责关闭输入流
+     *
+     * @param in
+     * @param filter
+     * @return
+     */
+    Map<String, Object> tableListFromBody(InputStream in, OperationFilter filter);
 }
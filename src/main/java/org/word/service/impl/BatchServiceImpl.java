@@ -0,0 +1,403 @@
+package org.word.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.word.config.BatchProperties;
+import org.word.metrics.ConversionMetrics;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+import org.word.service.BatchService;
+import org.word.service.RenderService;
+import org.word.service.WordService;
+import org.word.utils.JsonUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 批量转换：限制总并发数和单个主机的并发数，先完成的资源先写入 zip
+ *
+ * @author kevin
+ */
+@Slf4j
+@Service
+public class BatchServiceImpl implements BatchService {
+
+    private static final String STATUS_OK = "ok";
+    private static final String STATUS_ERROR = "error";
+    private static final String STATUS_TIMEOUT = "timeout";
+
+    /**
+     * 等待完成结果的最长间隔，间隔到了重新尝试派发受主机并发限制的资源
+     */
+    private static final long DISPATCH_INTERVAL_MILLIS = 200;
+
+    @Autowired
+    private WordService wordService;
+    @Autowired
+    private RenderService renderService;
+    @Autowired
+    private BatchProperties properties;
+    @Autowired
+    private ConversionMetrics metrics;
+
+    private ExecutorService executor;
+
+    /**
+     * 每个主机正在转换的资源数，所有批量请求共享；没有在转换的主机不保留条目
+     */
+    private final Map<String, Integer> hostRunning = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getConcurrency(), r -> {
+            Thread thread = new Thread(r, "batch-convert-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void convert(List<String> urls, List<MultipartFile> jsonFiles, OutputFormat format, OutputStream out)
+        throws IOException {
+        List<BatchItem> pending = new ArrayList<>();
+        if (urls != null) {
+            for (String url : urls) {
+                if (StringUtils.isNotBlank(url)) {
+                    pending.add(new BatchItem(pending.size() + 1, url.trim(), null, format));
+                }
+            }
+        }
+        if (jsonFiles != null) {
+            for (MultipartFile jsonFile : jsonFiles) {
+                pending.add(new BatchItem(pending.size() + 1, jsonFile.getOriginalFilename(), jsonFile, format));
+            }
+        }
+        List<BatchItem> items = new ArrayList<>(pending);
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out));
+        CompletionService<BatchItem> completionService = new ExecutorCompletionService<>(executor);
+        Map<BatchItem, Future<BatchItem>> running = new HashMap<>();
+        long deadline = System.currentTimeMillis() + properties.getTimeout().toMillis();
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                dispatch(pending, running, completionService);
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                Future<BatchItem> done = completionService.poll(Math.min(remaining, DISPATCH_INTERVAL_MILLIS),
+                    TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    continue;
+                }
+                BatchItem item = done.get();
+                running.remove(item);
+                writeEntry(zip, item);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 任务内部已捕获所有异常，不会走到这里
+            log.error("batch convert error", e);
+        } finally {
+            for (BatchItem item : pending) {
+                item.abandon();
+            }
+            for (Map.Entry<BatchItem, Future<BatchItem>> entry : running.entrySet()) {
+                entry.getKey().abandon();
+                entry.getValue().cancel(true);
+                // 还在线程池队列中的任务取消后不会执行，由这里归还主机许可；已开始的任务被中断，重复归还会被忽略
+                releaseHost(entry.getKey());
+            }
+        }
+        writeManifest(zip, items);
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * 派发所有能拿到主机许可的资源
+     */
+    private void dispatch(List<BatchItem> pending, Map<BatchItem, Future<BatchItem>> running,
+        CompletionService<BatchItem> completionService) {
+        Iterator<BatchItem> it = pending.iterator();
+        while (it.hasNext()) {
+            BatchItem item = it.next();
+            String host = item.getFile() == null ? host(item.getSource()) : null;
+            if (host != null && !tryAcquireHost(host)) {
+                continue;
+            }
+            item.holdHost(host);
+            it.remove();
+            running.put(item, completionService.submit(() -> convert(item)));
+        }
+    }
+
+    private static String host(String url) {
+        try {
+            return StringUtils.defaultString(URI.create(url).getHost()).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return StringUtils.EMPTY;
+        }
+    }
+
+    private boolean tryAcquireHost(String host) {
+        boolean[] acquired = new boolean[1];
+        hostRunning.compute(host, (h, running) -> {
+            int count = running == null ? 0 : running;
+            acquired[0] = count < properties.getPerHost();
+            return acquired[0] ? Integer.valueOf(count + 1) : running;
+        });
+        return acquired[0];
+    }
+
+    /**
+     * 归还资源派发时拿到的主机许可，主机没有其他在转换的资源时删除条目
+     */
+    private void releaseHost(BatchItem item) {
+        String host = item.takeHost();
+        if (host != null) {
+            hostRunning.computeIfPresent(host, (h, running) -> running > 1 ? Integer.valueOf(running - 1) : null);
+        }
+    }
+
+    private BatchItem convert(BatchItem item) {
+        long start = System.currentTimeMillis();
+        File file = null;
+        metrics.bind("batchToWord", item.getFormat().getExtension());
+        try {
+            Map<String, Object> result;
+            try {
+                result = load(item);
+            } finally {
+                releaseHost(item);
+            }
+            if (result == null || result.isEmpty()) {
+                item.fail(STATUS_ERROR, "no paths or definitions found");
+                return item;
+            }
+            Map<String, Object> variables = new HashMap<>(result);
+            variables.put("url", item.getFile() == null ? item.getSource() : "http://");
+            variables.put("download", 0);
+            if (item.getFormat() == OutputFormat.DOC) {
+                renderService.renderGroups(variables);
+            }
+            file = File.createTempFile("swagger2word-", "." + item.getFormat().getExtension());
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                renderService.render(variables, item.getFormat(), out);
+            }
+            item.complete(file);
+            file = null;
+        } catch (Exception e) {
+            log.error("batch convert error: " + item.getSource(), e);
+            item.fail(STATUS_ERROR, StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName()));
+        } finally {
+            if (file != null) {
+                delete(file);
+            }
+            item.setMillis(System.currentTimeMillis() - start);
+            metrics.unbind();
+        }
+        return item;
+    }
+
+    /**
+     * 失败时抛出带原因的 SpecLoadException，写入清单
+     */
+    private Map<String, Object> load(BatchItem item) throws IOException {
+        if (item.getFile() == null) {
+            return wordService.load(item.getSource(), OperationFilter.ALL);
+        }
+        try (InputStream in = item.getFile().getInputStream()) {
+            return wordService.load(in, OperationFilter.ALL);
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, BatchItem item) throws IOException {
+        File file = item.takeFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            zip.putNextEntry(new ZipEntry(item.getEntry()));
+            Files.copy(file.toPath(), zip);
+            zip.closeEntry();
+            zip.flush();
+        } finally {
+            delete(file);
+        }
+    }
+
+    private void writeManifest(ZipOutputStream zip, List<BatchItem> items) throws IOException {
+        List<Map<String, Object>> manifest = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("index", item.getIndex());
+            status.put("source", item.getSource());
+            status.put("status", item.getStatus());
+            status.put("entry", STATUS_OK.equals(item.getStatus()) ? item.getEntry() : null);
+            status.put("millis", item.getMillis());
+            status.put("message", item.getMessage());
+            manifest.add(status);
+        }
+        zip.putNextEntry(new ZipEntry("manifest.json"));
+        zip.write(JsonUtils.writeJsonStr(manifest).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static void delete(File file) {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 一个待转换的资源及其转换状态
+     */
+    private static class BatchItem {
+
+        private final int index;
+        private final String source;
+        private final MultipartFile file;
+        private final OutputFormat format;
+        private final String entry;
+
+        private volatile String status = STATUS_TIMEOUT;
+        private volatile String message;
+        private volatile long millis;
+        private File output;
+        private boolean abandoned;
+        private String host;
+
+        BatchItem(int index, String source, MultipartFile file, OutputFormat format) {
+            this.index = index;
+            this.source = StringUtils.defaultIfBlank(source, "jsonFile");
+            this.file = file;
+            this.format = format;
+            this.entry = String.format("%03d-%s.%s", index, entryName(this.source), format.getExtension());
+        }
+
+        private static String entryName(String source) {
+            String name = source.replaceFirst("^[a-zA-Z]+://", "").replaceFirst("\\.json$", "");
+            name = name.replaceAll("[^a-zA-Z0-9._-]+", "_");
+            return StringUtils.left(StringUtils.strip(name, "_"), 80);
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        MultipartFile getFile() {
+            return file;
+        }
+
+        OutputFormat getFormat() {
+            return format;
+        }
+
+        String getEntry() {
+            return entry;
+        }
+
+        String getStatus() {
+            return status;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        long getMillis() {
+            return millis;
+        }
+
+        void setMillis(long millis) {
+            this.millis = millis;
+        }
+
+        synchronized void holdHost(String host) {
+            this.host = host;
+        }
+
+        /**
+         * 取出派发时拿到许可的主机，只返回一次，保证许可只归还一次
+         */
+        synchronized String takeHost() {
+            String taken = host;
+            host = null;
+            return taken;
+        }
+
+        void fail(String status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        synchronized void complete(File output) {
+            if (abandoned) {
+                delete(output);
+                return;
+            }
+            this.output = output;
+            this.status = STATUS_OK;
+        }
+
+        synchronized File takeFile() {
+            File taken = output;
+            output = null;
+            return taken;
+        }
+
+        /**
+         * 超时放弃，之后完成的结果直接删除
+         */
+        synchronized void abandon() {
+            abandoned = true;
+            if (output != null) {
+                delete(output);
+                output = null;
+                status = STATUS_TIMEOUT;
+            }
+        }
+    }
+}
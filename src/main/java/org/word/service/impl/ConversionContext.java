@@ -0,0 +1,54 @@
+package org.word.service.impl;
+
+import org.word.parser.SwaggerSpec;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次转换的全部中间状态：解析出的文档、展开后的模型、示例缓存和耗时统计。
+ * 每次转换新建一个，只在生成这次转换的各个 Table 的线程之间共享；
+ * WordServiceImpl 和 RenderServiceImpl 只保存配置和线程安全的缓存，可以被任意多个请求同时调用。
+ *
+ * @author kevin
+ */
+public class ConversionContext {
+
+    private final SwaggerSpec spec;
+
+    private final ModelDefinitions definitions;
+
+    /**
+     * 请求和返回示例缓存
+     */
+    private final ExampleCache examples = new ExampleCache();
+
+    /**
+     * 生成示例累计耗时，各接口可能并行生成
+     */
+    private final LongAdder exampleNanos = new LongAdder();
+
+    public ConversionContext(SwaggerSpec spec, ModelDefinitions definitions) {
+        this.spec = spec;
+        this.definitions = definitions;
+    }
+
+    public SwaggerSpec getSpec() {
+        return spec;
+    }
+
+    public ModelDefinitions getDefinitions() {
+        return definitions;
+    }
+
+    public ExampleCache getExamples() {
+        return examples;
+    }
+
+    public void addExampleNanos(long nanos) {
+        exampleNanos.add(nanos);
+    }
+
+    public long getExampleNanos() {
+        return exampleNanos.sum();
+    }
+}
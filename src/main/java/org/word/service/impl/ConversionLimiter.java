@@ -0,0 +1,51 @@
+package org.word.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.word.config.VirtualThreadProperties;
+import org.word.utils.VirtualThreads;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 限制同时解析和渲染的请求数。使用虚拟线程时请求数不再受线程池限制，
+ * 解析、生成 Table 和渲染这些 CPU 密集的阶段通过许可控制在 CPU 核数左右，避免大量请求同时争抢 CPU；
+ * 使用平台线程池时不做限制。持有许可期间不读写网络：请求体和上游资源先读完再解析，文档先渲染到临时文件再输出
+ *
+ * @author kevin
+ */
+@Component
+public class ConversionLimiter {
+
+    private final Semaphore permits;
+
+    @Autowired
+    public ConversionLimiter(VirtualThreadProperties properties) {
+        if (properties.isEnabled() && VirtualThreads.isSupported()) {
+            int count = properties.getCpuPermits() > 0 ? properties.getCpuPermits()
+                : Runtime.getRuntime().availableProcessors();
+            permits = new Semaphore(count, true);
+        } else {
+            permits = null;
+        }
+    }
+
+    public void acquire() throws InterruptedIOException {
+        if (permits == null) {
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a conversion permit");
+        }
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+}
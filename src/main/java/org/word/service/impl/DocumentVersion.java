@@ -0,0 +1,80 @@
+package org.word.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.word.parser.OperationFilter;
+import org.word.utils.HashUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 除 Swagger 文档外影响输出内容的版本：程序版本、模板内容和模型展开限制，用于生成 ETag 和分组缓存的 key
+ *
+ * @author kevin
+ */
+@Component
+public class DocumentVersion {
+
+    private final String appVersion =
+        StringUtils.defaultString(DocumentVersion.class.getPackage().getImplementationVersion(), "dev");
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${spring.thymeleaf.prefix:classpath:/templates/}")
+    private String templatePrefix;
+    @Value("${spring.thymeleaf.suffix:.html}")
+    private String templateSuffix;
+
+    @Value("${swagger.convert.max-depth:10}")
+    private int maxDepth;
+    @Value("${swagger.convert.max-nodes:500}")
+    private int maxNodes;
+
+    /**
+     * 模板 word.html 内容的摘要。模板不缓存时修改后立即生效，因此每次重新读取，模板只有几 KB
+     */
+    public String getTemplateHash() {
+        Resource template = resourceLoader.getResource(templatePrefix + "word" + templateSuffix);
+        try (InputStream in = template.getInputStream()) {
+            return HashUtils.hex(HashUtils.sha256().digest(StreamUtils.copyToByteArray(in)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String get() {
+        return appVersion + "-" + getTemplateHash() + "-" + maxDepth + "-" + maxNodes;
+    }
+
+    /**
+     * /toWord 页面的输出变体，页面内容还与是否显示下载链接和资源地址有关
+     */
+    public static String pageVariant(Object download, Object url) {
+        return "html-" + download + "-" + url;
+    }
+
+    /**
+     * 文档的 ETag，由 Swagger 文档摘要、当前版本、输出变体和筛选条件决定，也用作渲染结果缓存的 key
+     *
+     * @param specHash Swagger 文档的 SHA-256 摘要，为 null 时返回 null
+     * @param variant  输出格式的扩展名，页面为 {@link #pageVariant(Object, Object)}
+     * @param filter   筛选条件
+     * @return 带引号的 ETag
+     */
+    public String etag(Object specHash, String variant, OperationFilter filter) {
+        if (specHash == null) {
+            return null;
+        }
+        String key = specHash + "-" + get() + "-" + variant + "-" + filter.getKey();
+        return "\"" + HashUtils.hex(HashUtils.sha256().digest(key.getBytes(StandardCharsets.UTF_8))) + "\"";
+    }
+}
@@ -0,0 +1,388 @@
+package org.word.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.word.model.Response;
+import org.word.model.Row;
+import org.word.model.Table;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 直接生成 .docx（Office Open XML），document.xml 边生成边写入 zip，不在内存中保存整个文档。
+ * 版式与 word.html 保持一致。
+ *
+ * @author kevin
+ */
+public class DocxWriter {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String HEADER_FILL = "559E68";
+    private static final String HEADER_COLOR = "FFFFFF";
+    private static final String BORDER_COLOR = "DBE3E4";
+
+    /**
+     * A4 纸去掉页边距后的宽度，第一列占 25%
+     */
+    private static final int[] GRID = {2256, 1692, 1692, 1693, 1693};
+
+    /**
+     * 嵌套属性每层缩进，对应 html 中的 padding-left:10px
+     */
+    private static final int INDENT_PER_LEVEL = 150;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * zip 条目使用固定的修改时间，相同内容每次生成的文件完全一致，ETag 才有意义
+     */
+    private static final long ENTRY_TIME =
+        LocalDateTime.of(1980, 2, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+        + "<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+        + "<Override PartName=\"/word/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>"
+        + "</Types>";
+
+    private static final String PACKAGE_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"word/document.xml\"/>"
+        + "</Relationships>";
+
+    private static final String DOCUMENT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+        + "</Relationships>";
+
+    private static final String STYLES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<w:styles xmlns:w=\"" + W_NS + "\">"
+        + "<w:docDefaults><w:rPrDefault><w:rPr><w:rFonts w:ascii=\"Calibri\" w:hAnsi=\"Calibri\" w:eastAsia=\"宋体\"/>"
+        + "<w:sz w:val=\"21\"/></w:rPr></w:rPrDefault>"
+        + "<w:pPrDefault><w:pPr><w:spacing w:after=\"0\" w:line=\"240\" w:lineRule=\"auto\"/></w:pPr></w:pPrDefault></w:docDefaults>"
+        + "<w:style w:type=\"paragraph\" w:default=\"1\" w:styleId=\"Normal\"><w:name w:val=\"Normal\"/></w:style>"
+        + "<w:style w:type=\"paragraph\" w:styleId=\"Title\"><w:name w:val=\"Title\"/><w:basedOn w:val=\"Normal\"/>"
+        + "<w:pPr><w:jc w:val=\"center\"/><w:spacing w:before=\"240\" w:after=\"240\"/></w:pPr><w:rPr><w:sz w:val=\"36\"/></w:rPr></w:style>"
+        + "<w:style w:type=\"paragraph\" w:styleId=\"Heading1\"><w:name w:val=\"heading 1\"/><w:basedOn w:val=\"Normal\"/>"
+        + "<w:pPr><w:keepNext/><w:spacing w:before=\"240\" w:after=\"120\"/><w:outlineLvl w:val=\"0\"/></w:pPr>"
+        + "<w:rPr><w:b/><w:sz w:val=\"30\"/></w:rPr></w:style>"
+        + "<w:style w:type=\"paragraph\" w:styleId=\"Heading2\"><w:name w:val=\"heading 2\"/><w:basedOn w:val=\"Normal\"/>"
+        + "<w:pPr><w:keepNext/><w:spacing w:before=\"120\" w:after=\"120\"/><w:outlineLvl w:val=\"1\"/></w:pPr>"
+        + "<w:rPr><w:b/><w:sz w:val=\"24\"/></w:rPr></w:style>"
+        + "</w:styles>";
+
+    private final XMLStreamWriter xml;
+
+    private DocxWriter(XMLStreamWriter xml) {
+        this.xml = xml;
+    }
+
+    /**
+     * 生成 docx 到输出流，调用方负责关闭输出流
+     *
+     * @param variables 与 word.html 相同的模板变量
+     * @param out
+     * @throws IOException
+     */
+    public static void write(Map<String, Object> variables, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        writePart(zip, "[Content_Types].xml", CONTENT_TYPES);
+        writePart(zip, "_rels/.rels", PACKAGE_RELS);
+        writePart(zip, "word/_rels/document.xml.rels", DOCUMENT_RELS);
+        writePart(zip, "word/styles.xml", STYLES);
+
+        zip.putNextEntry(entry("word/document.xml"));
+        try {
+            // 攒够一个缓冲区再交给 Deflater，逐个小片段压缩非常慢
+            OutputStream buffered = new BufferedOutputStream(new NonClosingOutputStream(zip), BUFFER_SIZE);
+            XMLStreamWriter xml = XMLOutputFactory.newInstance()
+                .createXMLStreamWriter(buffered, StandardCharsets.UTF_8.name());
+            new DocxWriter(xml).writeDocument(variables);
+            xml.close();
+            buffered.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    private static void writePart(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(entry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static ZipEntry entry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeDocument(Map<String, Object> variables) throws XMLStreamException {
+        xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        xml.writeStartElement("w", "document", W_NS);
+        xml.writeNamespace("w", W_NS);
+        xml.writeStartElement("w", "body", W_NS);
+
+        Object info = variables.get("info");
+        if (info instanceof Map) {
+            Map<String, Object> infoMap = (Map<String, Object>)info;
+            paragraph("Title", infoMap.get("title") + "（" + infoMap.get("version") + "）");
+        }
+        Map<String, List<Table>> tableMap = (Map<String, List<Table>>)variables.get("tableMap");
+        if (tableMap != null) {
+            for (Map.Entry<String, List<Table>> entry : tableMap.entrySet()) {
+                paragraph("Heading1", entry.getKey());
+                int count = 0;
+                for (Table table : entry.getValue()) {
+                    count++;
+                    paragraph("Heading2", count + "）" + table.getTag());
+                    writeTable(table);
+                }
+            }
+        }
+
+        // 页面设置：A4，页边距 1 英寸
+        xml.writeStartElement("w", "sectPr", W_NS);
+        emptyElement("pgSz", "w", "11906", "h", "16838");
+        emptyElement("pgMar", "top", "1440", "right", "1440", "bottom", "1440", "left", "1440",
+            "header", "720", "footer", "720", "gutter", "0");
+        xml.writeEndElement();
+
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+    }
+
+    private void writeTable(Table table) throws XMLStreamException {
+        xml.writeStartElement("w", "tbl", W_NS);
+        xml.writeStartElement("w", "tblPr", W_NS);
+        emptyElement("tblW", "w", "5000", "type", "pct");
+        xml.writeStartElement("w", "tblBorders", W_NS);
+        for (String border : new String[] {"top", "left", "bottom", "right", "insideH", "insideV"}) {
+            emptyElement(border, "val", "single", "sz", "4", "space", "0", "color", BORDER_COLOR);
+        }
+        xml.writeEndElement();
+        emptyElement("tblLayout", "type", "fixed");
+        xml.writeEndElement();
+        xml.writeStartElement("w", "tblGrid", W_NS);
+        for (int width : GRID) {
+            emptyElement("gridCol", "w", String.valueOf(width));
+        }
+        xml.writeEndElement();
+
+        headerRow(table.getTag());
+        labelRow("接口描述", table.getDescription());
+        labelRow("URL", table.getUrl());
+        labelRow("请求方式", table.getRequestType());
+        labelRow("请求类型", table.getRequestForm());
+        labelRow("返回类型", table.getResponseForm());
+
+        headerRow(new Cell("参数名", 1), new Cell("数据类型", 1), new Cell("参数类型", 1), new Cell("是否必填", 1),
+            new Cell("说明", 1));
+        if (table.getRequestRows() != null) {
+            for (Row row : table.getRequestRows()) {
+                row(false, new Cell(row.getName(), 1).left(row.getLevel()), new Cell(row.getType(), 1),
+                    new Cell(row.getParamType(), 1), new Cell(yesOrNo(row.getRequire()), 1),
+                    new Cell(row.getDescription(), 1));
+            }
+        }
+
+        headerRow(new Cell("状态码", 1), new Cell("描述", 2), new Cell("说明", 2));
+        if (table.getResponseList() != null) {
+            for (Response response : table.getResponseList()) {
+                row(false, new Cell(response.getName(), 1), new Cell(response.getDescription(), 2),
+                    new Cell(response.getRemark(), 2));
+            }
+        }
+
+        headerRow(new Cell("返回属性名", 1), new Cell("类型", 2), new Cell("说明", 2));
+        if (table.getResponseRows() != null) {
+            for (Row row : table.getResponseRows()) {
+                row(false, new Cell(row.getName(), 1).left(row.getLevel()), new Cell(row.getType(), 2),
+                    new Cell(row.getDescription(), 2));
+            }
+        }
+
+        row(true, new Cell("示例", 5).left(0));
+        row(false, new Cell("请求参数", 1).header(), new Cell(table.getRequestParam(), 4).left(0));
+        row(false, new Cell("返回值", 1).header(), new Cell(table.getResponseParam(), 4).left(0));
+
+        xml.writeEndElement();
+        // 表格之间空一行
+        paragraph(null, null);
+    }
+
+    private static String yesOrNo(Boolean require) {
+        return Boolean.TRUE.equals(require) ? "Y" : "N";
+    }
+
+    private void headerRow(String text) throws XMLStreamException {
+        row(true, new Cell(text, 5).left(0));
+    }
+
+    private void headerRow(Cell... cells) throws XMLStreamException {
+        row(true, cells);
+    }
+
+    private void labelRow(String label, String value) throws XMLStreamException {
+        row(false, new Cell(label, 1).left(0), new Cell(value, 4).left(0));
+    }
+
+    private void row(boolean header, Cell... cells) throws XMLStreamException {
+        xml.writeStartElement("w", "tr", W_NS);
+        xml.writeStartElement("w", "trPr", W_NS);
+        emptyElement("trHeight", "val", "480");
+        xml.writeEndElement();
+        for (Cell cell : cells) {
+            if (header) {
+                cell.header();
+            }
+            cell(cell);
+        }
+        xml.writeEndElement();
+    }
+
+    private void cell(Cell cell) throws XMLStreamException {
+        xml.writeStartElement("w", "tc", W_NS);
+        xml.writeStartElement("w", "tcPr", W_NS);
+        if (cell.span > 1) {
+            emptyElement("gridSpan", "val", String.valueOf(cell.span));
+        }
+        if (cell.header) {
+            emptyElement("shd", "val", "clear", "color", "auto", "fill", HEADER_FILL);
+        }
+        emptyElement("vAlign", "val", "center");
+        xml.writeEndElement();
+
+        xml.writeStartElement("w", "p", W_NS);
+        xml.writeStartElement("w", "pPr", W_NS);
+        if (cell.indent > 0) {
+            emptyElement("ind", "left", String.valueOf(cell.indent * INDENT_PER_LEVEL));
+        }
+        emptyElement("jc", "val", cell.indent >= 0 ? "left" : "center");
+        xml.writeEndElement();
+        run(cell.text, cell.header ? HEADER_COLOR : null);
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void paragraph(String style, String text) throws XMLStreamException {
+        xml.writeStartElement("w", "p", W_NS);
+        if (style != null) {
+            xml.writeStartElement("w", "pPr", W_NS);
+            emptyElement("pStyle", "val", style);
+            xml.writeEndElement();
+        }
+        run(text, null);
+        xml.writeEndElement();
+    }
+
+    private void run(String text, String color) throws XMLStreamException {
+        if (StringUtils.isEmpty(text)) {
+            return;
+        }
+        xml.writeStartElement("w", "r", W_NS);
+        if (color != null) {
+            xml.writeStartElement("w", "rPr", W_NS);
+            emptyElement("color", "val", color);
+            xml.writeEndElement();
+        }
+        xml.writeStartElement("w", "t", W_NS);
+        xml.writeAttribute("xml", "http://www.w3.org/XML/1998/namespace", "space", "preserve");
+        xml.writeCharacters(stripInvalidXmlChars(text));
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    /**
+     * 写入 w 命名空间下的空元素，attributes 为属性名和属性值交替排列
+     */
+    private void emptyElement(String name, String... attributes) throws XMLStreamException {
+        xml.writeEmptyElement("w", name, W_NS);
+        for (int i = 0; i + 1 < attributes.length; i += 2) {
+            xml.writeAttribute("w", W_NS, attributes[i], attributes[i + 1]);
+        }
+    }
+
+    /**
+     * XML 1.0 不允许出现的控制字符
+     */
+    private static String stripInvalidXmlChars(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            boolean valid = ch >= 0x20 ? ch != 0xFFFE && ch != 0xFFFF : ch == '\t' || ch == '\n' || ch == '\r';
+            if (!valid && sb == null) {
+                sb = new StringBuilder(text.length());
+                sb.append(text, 0, i);
+            } else if (valid && sb != null) {
+                sb.append(ch);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    /**
+     * 单元格，indent 为 -1 时居中，否则左对齐并按层级缩进
+     */
+    private static class Cell {
+
+        private final String text;
+        private final int span;
+        private int indent = -1;
+        private boolean header;
+
+        Cell(String text, int span) {
+            this.text = text;
+            this.span = span;
+        }
+
+        Cell left(int indent) {
+            this.indent = indent;
+            return this;
+        }
+
+        Cell header() {
+            this.header = true;
+            return this;
+        }
+    }
+
+    /**
+     * 关闭 XMLStreamWriter 时不关闭 zip 流
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
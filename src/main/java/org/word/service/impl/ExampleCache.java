@@ -0,0 +1,99 @@
+package org.word.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.word.model.ModelAttr;
+import org.word.utils.JsonUtils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 示例值缓存，在一次转换的所有 Table 之间共享。
+ * 示例只取决于类型和属性列表，同一个模型被多个接口引用时只生成和序列化一次。
+ * 缓存的对象会被多个 Table 共用，取出后不能修改。
+ *
+ * @author kevin
+ */
+public class ExampleCache {
+
+    /**
+     * 对象骨架，key 为类型加属性列表引用
+     */
+    private final Map<Key, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存对象序列化后的 JSON，按对象引用区分，只记录放入过缓存的对象
+     */
+    private final Map<Object, String> jsons = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * 返回值示例，key 为 #/definitions/xxx
+     */
+    private final Map<String, String> responseJsons = new ConcurrentHashMap<>();
+
+    public Object get(String type, ModelAttr modelAttr) {
+        return values.get(new Key(type, modelAttr.getProperties()));
+    }
+
+    /**
+     * 放入对象骨架，并发生成时以先放入的为准
+     */
+    public Object put(String type, ModelAttr modelAttr, Object value) {
+        Object previous = values.putIfAbsent(new Key(type, modelAttr.getProperties()), value);
+        if (previous != null) {
+            return previous;
+        }
+        jsons.put(value, null);
+        return value;
+    }
+
+    /**
+     * 序列化示例值，缓存过的对象直接返回上次的结果
+     */
+    public String toJson(Object value) throws JsonProcessingException {
+        String json = jsons.get(value);
+        if (json == null) {
+            json = JsonUtils.writeJsonStr(value);
+            if (value != null && jsons.containsKey(value)) {
+                jsons.put(value, json);
+            }
+        }
+        return json;
+    }
+
+    public String getResponseJson(String ref) {
+        return responseJsons.get(ref);
+    }
+
+    public void putResponseJson(String ref, String json) {
+        responseJsons.putIfAbsent(ref, json);
+    }
+
+    private static class Key {
+
+        private final String type;
+        private final List<ModelAttr> properties;
+
+        Key(String type, List<ModelAttr> properties) {
+            this.type = type;
+            this.properties = properties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return properties == other.properties && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(properties) + type.hashCode();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.word.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.word.config.GroupCacheProperties;
+import org.word.model.Response;
+import org.word.model.Row;
+import org.word.model.Table;
+import org.word.utils.HashUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按标签分组缓存渲染好的 html 片段，key 为分组内容的 SHA-256 摘要，按数量和总大小做 LRU 淘汰。
+ * <p>
+ * 摘要覆盖模板用到的所有 Table 字段。引用的模型在生成 Table 时已展开成行，
+ * 行中包含了间接引用的模型属性以及“参见 Xxx”，任何一层模型变化都会改变摘要。
+ *
+ * @author kevin
+ */
+@Component
+public class GroupFragmentCache {
+
+    private final GroupCacheProperties properties;
+
+    private final LinkedHashMap<String, String> fragments = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalWeight;
+
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong rebuilt = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public GroupFragmentCache(GroupCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public synchronized String get(String key) {
+        return fragments.get(key);
+    }
+
+    public synchronized void put(String key, String fragment) {
+        String old = fragments.remove(key);
+        if (old != null) {
+            totalWeight -= old.length();
+        }
+        if (fragment.length() > properties.getMaxWeight()) {
+            return;
+        }
+        fragments.put(key, fragment);
+        totalWeight += fragment.length();
+        Iterator<String> it = fragments.values().iterator();
+        while (it.hasNext() && (fragments.size() > properties.getMaxEntries() || totalWeight > properties.getMaxWeight())) {
+            String eldest = it.next();
+            it.remove();
+            totalWeight -= eldest.length();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public void record(int reusedGroups, int rebuiltGroups) {
+        reused.addAndGet(reusedGroups);
+        rebuilt.addAndGet(rebuiltGroups);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", fragments.size());
+        stats.put("weight", totalWeight);
+        stats.put("reused", reused.get());
+        stats.put("rebuilt", rebuilt.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /**
+     * 分组的摘要，分组名和各 Table 中模板用到的字段依次写入，每个字段带长度前缀，避免拼接产生歧义
+     *
+     * @param group  分组名，即标签
+     * @param tables 分组内的接口
+     * @return 十六进制摘要
+     */
+    public static String key(String group, List<Table> tables) {
+        MessageDigest digest = HashUtils.sha256();
+        update(digest, group);
+        updateInt(digest, tables.size());
+        for (Table table : tables) {
+            update(digest, table.getTag());
+            update(digest, table.getDescription());
+            update(digest, table.getUrl());
+            update(digest, table.getRequestType());
+            update(digest, table.getRequestForm());
+            update(digest, table.getResponseForm());
+            updateRows(digest, table.getRequestRows());
+            List<Response> responseList = table.getResponseList();
+            updateInt(digest, responseList == null ? -1 : responseList.size());
+            if (responseList != null) {
+                for (Response response : responseList) {
+                    update(digest, response.getName());
+                    update(digest, response.getDescription());
+                    update(digest, response.getRemark());
+                }
+            }
+            updateRows(digest, table.getResponseRows());
+            update(digest, table.getRequestParam());
+            update(digest, table.getResponseParam());
+        }
+        return HashUtils.hex(digest.digest());
+    }
+
+    private static void updateRows(MessageDigest digest, List<Row> rows) {
+        updateInt(digest, rows == null ? -1 : rows.size());
+        if (rows == null) {
+            return;
+        }
+        for (Row row : rows) {
+            update(digest, row.getName());
+            update(digest, row.getType());
+            update(digest, row.getParamType());
+            updateInt(digest, row.getRequire() == null ? -1 : row.getRequire() ? 1 : 0);
+            update(digest, row.getDescription());
+            updateInt(digest, row.getLevel());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            updateInt(digest, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte)(value >>> 24));
+        digest.update((byte)(value >>> 16));
+        digest.update((byte)(value >>> 8));
+        digest.update((byte)value);
+    }
+}
@@ -0,0 +1,377 @@
+package org.word.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.word.config.JobProperties;
+import org.word.metrics.ConversionMetrics;
+import org.word.model.ConversionJob;
+import org.word.model.JobPriority;
+import org.word.model.JobState;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+import org.word.service.JobService;
+import org.word.service.RenderService;
+import org.word.service.WordService;
+import org.word.utils.CountingInputStream;
+import org.word.utils.HashUtils;
+import org.word.utils.JobRejectedException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步转换：固定数量的工作线程按优先级从队列中取任务执行，排队数达到上限时拒绝提交。
+ * 上传的 json 先暂存到磁盘再排队，请求结束后不再占用连接；结果写入临时文件，过了保留时间后删除。
+ *
+ * @author kevin
+ */
+@Slf4j
+@Service
+public class JobServiceImpl implements JobService {
+
+    @Autowired
+    private WordService wordService;
+    @Autowired
+    private RenderService renderService;
+    @Autowired
+    private JobProperties properties;
+    @Autowired
+    private ConversionMetrics metrics;
+
+    /**
+     * 暂存的 Swagger json 的最大字节数，与直接转换的限制相同
+     */
+    @Value("${swagger.convert.max-spec-bytes:268435456}")
+    private long maxSpecBytes;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService cleaner;
+
+    /**
+     * 所有未过期的任务，按 id
+     */
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 排队或执行中的任务，按去重 key，受 this 保护
+     */
+    private final Map<String, ConversionJob> inFlight = new HashMap<>();
+
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 排队中的任务数，受 this 保护
+     */
+    private int queued;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong attached = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+            queue, r -> {
+                Thread thread = new Thread(r, "conversion-job-" + threadNo.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "conversion-job-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(60000, properties.getRetention().toMillis() / 10));
+        cleaner.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleaner.shutdownNow();
+        executor.shutdownNow();
+        for (ConversionJob job : jobs.values()) {
+            deleteFiles(job);
+        }
+        jobs.clear();
+    }
+
+    @Override
+    public ConversionJob submit(String url, OutputFormat format, OperationFilter filter, JobPriority priority) {
+        if (StringUtils.isBlank(url)) {
+            throw new IllegalArgumentException("url is required");
+        }
+        url = url.trim();
+        return enqueue("url:" + url, url, null, format, filter, priority);
+    }
+
+    @Override
+    public ConversionJob submit(MultipartFile jsonFile, OutputFormat format, OperationFilter filter,
+                                JobPriority priority) throws IOException {
+        try (InputStream in = jsonFile.getInputStream()) {
+            return spool(in, StringUtils.defaultIfBlank(jsonFile.getOriginalFilename(), "jsonFile"), format, filter,
+                priority);
+        }
+    }
+
+    @Override
+    public ConversionJob submit(InputStream in, OutputFormat format, OperationFilter filter, JobPriority priority)
+        throws IOException {
+        return spool(in, "jsonStr", format, filter, priority);
+    }
+
+    /**
+     * 暂存到临时文件，同时计算摘要用于去重
+     */
+    private ConversionJob spool(InputStream in, String source, OutputFormat format, OperationFilter filter,
+                                JobPriority priority) throws IOException {
+        File spec = File.createTempFile("swagger2word-job-", ".json");
+        try {
+            MessageDigest digest = HashUtils.sha256();
+            try (OutputStream out = Files.newOutputStream(spec.toPath())) {
+                StreamUtils.copy(new DigestInputStream(new CountingInputStream(in, maxSpecBytes), digest), out);
+            }
+            ConversionJob job = enqueue("sha256:" + HashUtils.hex(digest.digest()), source, spec, format, filter,
+                priority);
+            if (job.getSpec() == spec) {
+                spec = null;
+            }
+            return job;
+        } finally {
+            if (spec != null) {
+                delete(spec);
+            }
+        }
+    }
+
+    /**
+     * @param identity 资源地址或内容摘要，与格式和筛选条件一起作为去重 key
+     */
+    private ConversionJob enqueue(String identity, String source, File spec, OutputFormat format,
+                                  OperationFilter filter, JobPriority priority) {
+        String key = identity + "|" + format.getExtension() + "|" + filter.getKey();
+        ConversionJob job;
+        synchronized (this) {
+            ConversionJob running = inFlight.get(key);
+            if (running != null) {
+                running.attach();
+                attached.incrementAndGet();
+                return running;
+            }
+            if (queued >= properties.getQueueCapacity()) {
+                rejected.incrementAndGet();
+                throw new JobRejectedException(properties.getQueueCapacity(), getRetryAfterSeconds());
+            }
+            job = new ConversionJob(key, source, spec, format, filter, priority, sequence.incrementAndGet());
+            inFlight.put(key, job);
+            jobs.put(job.getId(), job);
+            queued++;
+        }
+        submitted.incrementAndGet();
+        try {
+            executor.execute(new JobTask(job));
+        } catch (RejectedExecutionException e) {
+            // 只在关闭时发生
+            synchronized (this) {
+                queued--;
+                inFlight.remove(key, job);
+            }
+            job.fail("service is shutting down");
+        }
+        return job;
+    }
+
+    private void run(ConversionJob job) {
+        synchronized (this) {
+            queued--;
+        }
+        job.start();
+        File file = null;
+        metrics.bind("jobs", job.getFormat().getExtension(), job::stage);
+        try {
+            Map<String, Object> result;
+            if (job.getSpec() == null) {
+                result = wordService.load(job.getSource(), job.getFilter());
+            } else {
+                try (InputStream in = Files.newInputStream(job.getSpec().toPath())) {
+                    result = wordService.load(in, job.getFilter());
+                }
+            }
+            if (result == null || result.isEmpty()) {
+                job.fail("no paths or definitions found");
+                failed.incrementAndGet();
+                return;
+            }
+            Map<String, Object> variables = new HashMap<>(result);
+            variables.put("url", job.getSpec() == null ? job.getSource() : "http://");
+            variables.put("download", 0);
+            if (job.getFormat() == OutputFormat.DOC) {
+                renderService.renderGroups(variables);
+            }
+            file = File.createTempFile("swagger2word-job-", "." + job.getFormat().getExtension());
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                renderService.render(variables, job.getFormat(), out);
+            }
+            job.complete(file, file.length());
+            file = null;
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            log.error("conversion job failed: " + job.getSource(), e);
+            job.fail(StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName()));
+            failed.incrementAndGet();
+        } finally {
+            if (file != null) {
+                delete(file);
+            }
+            if (job.getSpec() != null) {
+                delete(job.getSpec());
+            }
+            synchronized (this) {
+                inFlight.remove(job.getKey(), job);
+            }
+            metrics.unbind();
+        }
+    }
+
+    @Override
+    public ConversionJob get(String id) {
+        ConversionJob job = id == null ? null : jobs.get(id);
+        if (job != null && isExpired(job, System.currentTimeMillis())) {
+            remove(job);
+            return null;
+        }
+        return job;
+    }
+
+    @Override
+    public int queuePosition(ConversionJob job) {
+        if (job.getState() != JobState.QUEUED) {
+            return -1;
+        }
+        int ahead = 0;
+        for (Object task : queue.toArray()) {
+            if (((JobTask)task).compareTo(job) < 0) {
+                ahead++;
+            }
+        }
+        return ahead;
+    }
+
+    @Override
+    public long getRetryAfterSeconds() {
+        return Math.max(1, properties.getRetryAfter().getSeconds());
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", properties.getWorkers());
+        stats.put("queueCapacity", properties.getQueueCapacity());
+        synchronized (this) {
+            stats.put("queued", queued);
+        }
+        stats.put("running", executor.getActiveCount());
+        stats.put("retained", jobs.size());
+        stats.put("submitted", submitted.get());
+        stats.put("attached", attached.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("expired", expired.get());
+        return stats;
+    }
+
+    /**
+     * 删除超过保留时间的任务和结果
+     */
+    private void expire() {
+        long now = System.currentTimeMillis();
+        for (ConversionJob job : jobs.values()) {
+            if (isExpired(job, now)) {
+                remove(job);
+            }
+        }
+    }
+
+    private boolean isExpired(ConversionJob job, long now) {
+        return job.isFinished() && now - job.getFinishedAt() > properties.getRetention().toMillis();
+    }
+
+    private void remove(ConversionJob job) {
+        if (jobs.remove(job.getId(), job)) {
+            deleteFiles(job);
+            expired.incrementAndGet();
+        }
+    }
+
+    private static void deleteFiles(ConversionJob job) {
+        if (job.getResult() != null) {
+            delete(job.getResult());
+        }
+        if (job.getSpec() != null && job.getSpec().exists()) {
+            delete(job.getSpec());
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 队列中的任务，优先级高的在前，同一优先级先提交的在前
+     */
+    private class JobTask implements Runnable, Comparable<JobTask> {
+
+        private final ConversionJob job;
+
+        JobTask(ConversionJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            JobServiceImpl.this.run(job);
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            return compareTo(other.job);
+        }
+
+        int compareTo(ConversionJob other) {
+            int result = job.getPriority().compareTo(other.getPriority());
+            return result != 0 ? result : Long.compare(job.getSequence(), other.getSequence());
+        }
+    }
+}
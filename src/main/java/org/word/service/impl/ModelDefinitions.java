@@ -0,0 +1,156 @@
+package org.word.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.word.model.ModelAttr;
+import org.word.model.Row;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析好的模型定义，按 #/definitions/xxx 预先生成请求和返回两种视图。
+ * 视图在各个 Table 和 Request 之间按引用共享，生成后不允许再修改。
+ *
+ * @author kevin
+ */
+public class ModelDefinitions {
+
+    /**
+     * 原始模型，key 为 #/definitions/xxx
+     */
+    private final Map<String, ModelAttr> definitinMap;
+
+    /**
+     * 请求参数视图：只过滤第一层没有说明的属性
+     */
+    private final Map<String, ModelAttr> requestModels;
+
+    /**
+     * 返回属性视图：逐层过滤没有说明的属性
+     */
+    private final Map<String, ModelAttr> responseModels;
+
+    /**
+     * 已过滤的属性列表，按原列表引用缓存，被多处引用的模型只过滤一次
+     */
+    private final Map<List<ModelAttr>, List<ModelAttr>> filteredLists = new IdentityHashMap<>();
+
+    /**
+     * 返回属性展开后的行，按返回视图引用缓存，生成 Table 时可能并行访问
+     */
+    private final Map<ModelAttr, List<Row>> responseRows = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public ModelDefinitions(Map<String, ModelAttr> definitinMap) {
+        this.definitinMap = definitinMap;
+        this.requestModels = new HashMap<>(definitinMap.size() * 2);
+        this.responseModels = new HashMap<>(definitinMap.size() * 2);
+        for (Map.Entry<String, ModelAttr> entry : definitinMap.entrySet()) {
+            ModelAttr origin = entry.getValue();
+            requestModels.put(entry.getKey(), view(origin, filter(origin.getProperties(), false)));
+            responseModels.put(entry.getKey(), view(origin, filter(origin.getProperties(), true)));
+        }
+    }
+
+    /**
+     * 原始模型
+     */
+    public ModelAttr get(String ref) {
+        return definitinMap.get(ref);
+    }
+
+    /**
+     * 请求参数引用的模型
+     */
+    public ModelAttr getRequestModel(String ref) {
+        return requestModels.get(ref);
+    }
+
+    /**
+     * 返回值引用的模型
+     */
+    public ModelAttr getResponseModel(String ref) {
+        return responseModels.get(ref);
+    }
+
+    /**
+     * 返回属性展开后的行，同一个返回模型只展开一次
+     */
+    public List<Row> getResponseRows(ModelAttr responseModel) {
+        if (responseModel == null || responseModel.getProperties() == null
+            || responseModel.getProperties().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = responseRows.get(responseModel);
+        if (rows == null) {
+            rows = Collections.unmodifiableList(RowFlattener.responseRows(responseModel.getProperties()));
+            responseRows.put(responseModel, rows);
+        }
+        return rows;
+    }
+
+    public int size() {
+        return definitinMap.size();
+    }
+
+    /**
+     * 过滤掉没有说明的属性，deep 为 true 时逐层过滤。没有变化时直接返回原列表。
+     */
+    private List<ModelAttr> filter(List<ModelAttr> origin, boolean deep) {
+        if (origin == null) {
+            return Collections.emptyList();
+        }
+        if (origin.isEmpty()) {
+            return origin;
+        }
+        if (deep) {
+            List<ModelAttr> cached = filteredLists.get(origin);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<ModelAttr> props = new ArrayList<>(origin.size());
+        boolean changed = false;
+        for (ModelAttr sub : origin) {
+            if (StringUtils.isBlank(sub.getDescription())) {
+                changed = true;
+                continue;
+            }
+            ModelAttr target = sub;
+            if (deep) {
+                List<ModelAttr> subProps = filter(sub.getProperties(), true);
+                if (subProps != sub.getProperties()) {
+                    target = view(sub, subProps);
+                    changed = true;
+                }
+            }
+            props.add(target);
+        }
+        List<ModelAttr> result = changed ? Collections.unmodifiableList(props) : origin;
+        if (deep) {
+            filteredLists.put(origin, result);
+        }
+        return result;
+    }
+
+    /**
+     * 属性列表不同时才复制节点
+     */
+    private static ModelAttr view(ModelAttr origin, List<ModelAttr> properties) {
+        if (origin.getProperties() == properties) {
+            return origin;
+        }
+        ModelAttr modelAttr = new ModelAttr();
+        modelAttr.setClassName(origin.getClassName());
+        modelAttr.setName(origin.getName());
+        modelAttr.setType(origin.getType());
+        modelAttr.setRequire(origin.getRequire());
+        modelAttr.setDescription(origin.getDescription());
+        modelAttr.setSeeAlso(origin.getSeeAlso());
+        modelAttr.setProperties(properties);
+        return modelAttr;
+    }
+}
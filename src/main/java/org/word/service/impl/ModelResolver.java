@@ -0,0 +1,427 @@
+package org.word.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.word.model.ModelAttr;
+import org.word.parser.SwaggerSpec.Definition;
+import org.word.parser.SwaggerSpec.Operation;
+import org.word.parser.SwaggerSpec.Parameter;
+import org.word.parser.SwaggerSpec.ResponseSpec;
+import org.word.parser.SwaggerSpec.Schema;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解析模型之间的 $ref 引用，展开成属性树。
+ * <p>
+ * 先建立引用图并用 Tarjan 算法求强连通分量，按依赖在前的顺序逐个展开模型。
+ * 展开时遇到当前路径上已有的模型（循环引用），或超出最大层数、节点预算时不再展开，
+ * 只在属性上记录“参见 Xxx”。完整展开且不受路径影响的子树在各模型之间共享，
+ * 每个模型展开的节点数不超过预算，整体耗时和输出与文档大小成线性关系。
+ *
+ * @author kevin
+ */
+public class ModelResolver {
+
+    private static final String REF_PREFIX = "#/definitions/";
+
+    private final Map<String, Definition> definitions;
+
+    /**
+     * 属性最多展开的层数，模型自身的属性为第 1 层
+     */
+    private final int maxDepth;
+
+    /**
+     * 每个模型最多展开的嵌套属性节点数
+     */
+    private final int maxNodes;
+
+    private final String[] names;
+    private final Map<String, Integer> index;
+
+    /**
+     * 所属强连通分量编号
+     */
+    private int[] component;
+
+    /**
+     * 当前展开路径上每个强连通分量的模型数
+     */
+    private int[] componentOnPath;
+
+    private boolean[] onPath;
+
+    /**
+     * 已完整展开、可以直接共享的模型
+     */
+    private Expansion[] complete;
+
+    private int truncated;
+    private int cyclic;
+    private int deepest;
+
+    public ModelResolver(Map<String, Definition> definitions, int maxDepth, int maxNodes) {
+        this.definitions = definitions;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.maxNodes = Math.max(0, maxNodes);
+        this.names = definitions.keySet().toArray(new String[0]);
+        this.index = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i], i);
+        }
+    }
+
+    /**
+     * 从接口的请求参数和返回值引用的模型出发，只保留能引用到的模型，其余模型不再展开。
+     * 只转换部分接口时，展开模型的开销只与这些接口用到的模型有关
+     *
+     * @param definitions 全部模型，key 为模型名
+     * @param operations  要转换的接口
+     * @return 能引用到的模型，保持原来的顺序；全部能引用到时返回原 Map
+     */
+    public static Map<String, Definition> reachable(Map<String, Definition> definitions, List<Operation> operations) {
+        Deque<String> pending = new ArrayDeque<>();
+        for (Operation operation : operations) {
+            if (operation.getParameters() != null) {
+                for (Parameter parameter : operation.getParameters()) {
+                    addRefs(parameter.getSchema(), pending);
+                    addRefs(parameter.getItems(), pending);
+                }
+            }
+            if (operation.getResponses() != null) {
+                for (ResponseSpec response : operation.getResponses().values()) {
+                    addRefs(response.getSchema(), pending);
+                }
+            }
+        }
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            Definition definition = definitions.get(name);
+            if (definition == null || !visited.add(name) || definition.getProperties() == null) {
+                continue;
+            }
+            for (Schema schema : definition.getProperties().values()) {
+                addRefs(schema, pending);
+            }
+        }
+        if (visited.size() == definitions.size()) {
+            return definitions;
+        }
+        Map<String, Definition> result = new LinkedHashMap<>(visited.size() * 2);
+        for (Map.Entry<String, Definition> entry : definitions.entrySet()) {
+            if (visited.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static void addRefs(Schema schema, Deque<String> pending) {
+        if (schema == null) {
+            return;
+        }
+        if (schema.getRef() != null) {
+            pending.push(className(schema.getRef()));
+        }
+        if (schema.getItems() != null && schema.getItems().getRef() != null) {
+            pending.push(className(schema.getItems().getRef()));
+        }
+    }
+
+    /**
+     * 截取 #/definitions/ 后面的
+     */
+    private static String className(String ref) {
+        return ref.length() > REF_PREFIX.length() ? ref.substring(REF_PREFIX.length()) : ref;
+    }
+
+    /**
+     * 展开所有模型
+     *
+     * @return key 为 #/definitions/xxx
+     */
+    public Map<String, ModelAttr> resolve() {
+        int n = names.length;
+        int[][] edges = buildGraph();
+        List<int[]> components = stronglyConnectedComponents(edges);
+
+        componentOnPath = new int[components.size()];
+        onPath = new boolean[n];
+        complete = new Expansion[n];
+        ModelAttr[] models = new ModelAttr[n];
+        // Tarjan 先输出被依赖的分量，依赖的模型先展开，后面可以直接共享
+        for (int[] members : components) {
+            for (int v : members) {
+                if (hasCycle(members, v, edges)) {
+                    cyclic++;
+                }
+                models[v] = expandRoot(v);
+            }
+        }
+
+        Map<String, ModelAttr> result = new HashMap<>(n * 2);
+        for (int v = 0; v < n; v++) {
+            result.put(REF_PREFIX + names[v], models[v]);
+        }
+        return result;
+    }
+
+    /**
+     * 处于循环引用中的模型数
+     */
+    public int getCyclic() {
+        return cyclic;
+    }
+
+    /**
+     * 展开后最深的层数
+     */
+    public int getDepth() {
+        return deepest;
+    }
+
+    /**
+     * 因循环引用或超出限制而没有展开的属性数
+     */
+    public int getTruncated() {
+        return truncated;
+    }
+
+    private ModelAttr expandRoot(int v) {
+        Definition definition = definitions.get(names[v]);
+        ModelAttr modelAttr = new ModelAttr();
+        if (definition.getProperties() == null) {
+            return modelAttr;
+        }
+        int[] budget = {maxNodes};
+        Expansion expansion = expand(v, 1, budget);
+        deepest = Math.max(deepest, expansion.height);
+        if (expansion.complete) {
+            complete[v] = expansion;
+        }
+        modelAttr.setClassName(definition.getTitle() == null ? "" : definition.getTitle());
+        modelAttr.setDescription(definition.getDescription() == null ? "" : definition.getDescription());
+        modelAttr.setProperties(expansion.properties);
+        return modelAttr;
+    }
+
+    /**
+     * 展开模型 v 的属性，属性位于第 depth 层
+     */
+    private Expansion expand(int v, int depth, int[] budget) {
+        onPath[v] = true;
+        componentOnPath[component[v]]++;
+        try {
+            Map<String, Schema> properties = definitions.get(names[v]).getProperties();
+            List<ModelAttr> attrList = new ArrayList<>(properties.size());
+            boolean full = true;
+            int nodes = 0;
+            int height = 1;
+            for (Map.Entry<String, Schema> entry : properties.entrySet()) {
+                Schema schema = entry.getValue();
+                ModelAttr child = new ModelAttr();
+                child.setName(entry.getKey());
+                child.setType(schema.getType());
+                if (schema.getFormat() != null) {
+                    child.setType(child.getType() + "(" + schema.getFormat() + ")");
+                }
+                child.setType(StringUtils.defaultIfBlank(child.getType(), "object"));
+                child.setDescription(schema.getDescription());
+                nodes++;
+
+                String ref = schema.getRef();
+                Schema items = schema.getItems();
+                if (ref != null || (items != null && (ref = items.getRef()) != null)) {
+                    String clsName = className(ref);
+                    child.setType(child.getType() + ":" + clsName);
+                    Integer target = index.get(clsName);
+                    if (target != null && definitions.get(clsName).getProperties() != null) {
+                        Expansion sub = expandChild(target, depth + 1, budget);
+                        if (sub == null) {
+                            child.setSeeAlso(clsName);
+                            full = false;
+                            truncated++;
+                        } else {
+                            child.setProperties(sub.properties);
+                            full &= sub.complete;
+                            nodes += sub.nodes;
+                            height = Math.max(height, sub.height + 1);
+                        }
+                    }
+                }
+                attrList.add(child);
+            }
+            return new Expansion(Collections.unmodifiableList(attrList), nodes, height, full);
+        } finally {
+            onPath[v] = false;
+            componentOnPath[component[v]]--;
+        }
+    }
+
+    /**
+     * 展开被引用的模型，不能展开时返回 null
+     */
+    private Expansion expandChild(int target, int depth, int[] budget) {
+        if (onPath[target] || depth > maxDepth) {
+            return null;
+        }
+        Expansion shared = complete[target];
+        // 路径上没有同一分量的模型时，子树与单独展开该模型的结果相同，可以直接共享
+        if (shared != null && componentOnPath[component[target]] == 0
+            && depth + shared.height - 1 <= maxDepth && shared.nodes <= budget[0]) {
+            budget[0] -= shared.nodes;
+            return shared;
+        }
+        int size = definitions.get(names[target]).getProperties().size();
+        if (size > budget[0]) {
+            return null;
+        }
+        budget[0] -= size;
+        Expansion expansion = expand(target, depth, budget);
+        if (expansion.complete && complete[target] == null && componentOnPath[component[target]] == 0) {
+            complete[target] = expansion;
+        }
+        return expansion;
+    }
+
+    /**
+     * 引用图，边指向属性或数组元素引用的模型
+     */
+    private int[][] buildGraph() {
+        int[][] edges = new int[names.length][];
+        for (int v = 0; v < names.length; v++) {
+            Map<String, Schema> properties = definitions.get(names[v]).getProperties();
+            if (properties == null) {
+                edges[v] = new int[0];
+                continue;
+            }
+            int[] targets = new int[properties.size()];
+            int count = 0;
+            for (Schema schema : properties.values()) {
+                String ref = schema.getRef();
+                Schema items = schema.getItems();
+                if (ref == null && items != null) {
+                    ref = items.getRef();
+                }
+                Integer target = ref != null && ref.startsWith(REF_PREFIX)
+                    ? index.get(ref.substring(REF_PREFIX.length())) : null;
+                if (target != null) {
+                    targets[count++] = target;
+                }
+            }
+            edges[v] = Arrays.copyOf(targets, count);
+        }
+        return edges;
+    }
+
+    /**
+     * 非递归的 Tarjan 算法，分量按被依赖在前的顺序返回
+     */
+    private List<int[]> stronglyConnectedComponents(int[][] edges) {
+        int n = edges.length;
+        component = new int[n];
+        int[] order = new int[n];
+        int[] low = new int[n];
+        int[] next = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(order, -1);
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Integer> call = new ArrayDeque<>();
+        List<int[]> components = new ArrayList<>();
+        int counter = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1) {
+                continue;
+            }
+            call.push(root);
+            while (!call.isEmpty()) {
+                int v = call.peek();
+                if (order[v] == -1) {
+                    order[v] = low[v] = counter++;
+                    stack.push(v);
+                    onStack[v] = true;
+                }
+                if (next[v] < edges[v].length) {
+                    int w = edges[v][next[v]++];
+                    if (order[w] == -1) {
+                        call.push(w);
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                call.pop();
+                if (!call.isEmpty()) {
+                    int parent = call.peek();
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == order[v]) {
+                    List<Integer> members = new ArrayList<>();
+                    int w;
+                    do {
+                        w = stack.pop();
+                        onStack[w] = false;
+                        component[w] = components.size();
+                        members.add(w);
+                    } while (w != v);
+                    int[] array = new int[members.size()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = members.get(array.length - 1 - i);
+                    }
+                    components.add(array);
+                }
+            }
+        }
+        return components;
+    }
+
+    private static boolean hasCycle(int[] members, int v, int[][] edges) {
+        if (members.length > 1) {
+            return true;
+        }
+        for (int w : edges[v]) {
+            if (w == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Expansion {
+
+        private final List<ModelAttr> properties;
+
+        /**
+         * 子树中的节点数，不含模型自身
+         */
+        private final int nodes;
+
+        /**
+         * 子树层数
+         */
+        private final int height;
+
+        /**
+         * 是否完整展开，没有因循环或限制被截断
+         */
+        private final boolean complete;
+
+        Expansion(List<ModelAttr> properties, int nodes, int height, boolean complete) {
+            this.properties = properties;
+            this.nodes = nodes;
+            this.height = height;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package org.word.service.impl;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.word.config.OutputCacheProperties;
+import org.word.model.OutputFormat;
+import org.word.utils.HashUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 渲染结果缓存，key 由 Swagger 文档摘要、程序和模板版本、输出格式和筛选条件等决定（即 ETag）：
+ * <ul>
+ * <li>内存：较小的文档按总大小做 LRU 淘汰</li>
+ * <li>磁盘：文件名为 key 的摘要，先写临时文件再原子重命名，命中时更新修改时间，
+ * 总大小超出上限时按修改时间删除最久未使用的文件。不维护索引，每次按文件名查找，多个节点共用同一目录时互相命中</li>
+ * </ul>
+ *
+ * @author kevin
+ */
+@Slf4j
+@Component
+public class OutputCache {
+
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    /**
+     * 启动时删除超过该时间的临时文件，较新的可能是其他节点正在写入的
+     */
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final OutputCacheProperties properties;
+
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBytes;
+
+    /**
+     * 磁盘缓存目录，未开启或无法创建时为 null
+     */
+    private Path directory;
+
+    /**
+     * 本节点估计的磁盘缓存大小，超出上限时重新扫描目录
+     */
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final Object diskLock = new Object();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    @Autowired
+    public OutputCache(OutputCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled() || properties.getDiskMaxBytes() <= 0) {
+            return;
+        }
+        Path dir = StringUtils.isBlank(properties.getDirectory())
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "swagger2word-output")
+            : Paths.get(properties.getDirectory());
+        try {
+            Files.createDirectories(dir);
+            directory = dir;
+            long now = System.currentTimeMillis();
+            long total = 0;
+            for (CachedFile file : scan()) {
+                if (file.isTemp()) {
+                    if (now - file.getLastModified() > STALE_TEMP_MILLIS) {
+                        Files.deleteIfExists(file.getPath());
+                    }
+                } else {
+                    total += file.getSize();
+                }
+            }
+            diskBytes.set(total);
+            log.info("output cache directory {}, {} bytes", dir, total);
+        } catch (IOException e) {
+            directory = null;
+            log.warn("output cache directory {} is not usable, caching in memory only", dir, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 先查内存再查磁盘，磁盘上较小的文档读入内存。磁盘命中时返回已打开的文件，之后被淘汰（包括其他节点删除）仍可读完，
+     * 打开前已被删除的按未命中处理
+     *
+     * @return 未命中时返回 null，调用方负责关闭
+     */
+    public Entry get(String key, OutputFormat format) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String name = fileName(key, format);
+        byte[] content;
+        synchronized (this) {
+            content = memory.get(name);
+        }
+        if (content != null) {
+            memoryHits.incrementAndGet();
+            return new Entry(content, null, null, content.length);
+        }
+        if (directory != null) {
+            Path file = directory.resolve(name);
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                long size = channel.size();
+                touch(file);
+                diskHits.incrementAndGet();
+                if (fitsInMemory(size)) {
+                    content = read(channel, (int)size);
+                    channel.close();
+                    putMemory(name, content);
+                    return new Entry(content, null, null, content.length);
+                }
+                return new Entry(null, file, channel, size);
+            } catch (NoSuchFileException e) {
+                // 未命中
+            } catch (IOException e) {
+                closeQuietly(channel);
+                log.warn("failed to read cached output {}", file, e);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 按修改时间淘汰，命中即更新；文件刚被删除时忽略，已打开的仍可读完
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 已被删除
+        }
+    }
+
+    private static byte[] read(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // 按位置读到末尾
+        }
+        return buffer.array();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 是否已缓存，不计入命中统计
+     */
+    public boolean contains(String key, OutputFormat format) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        String name = fileName(key, format);
+        synchronized (this) {
+            if (memory.containsKey(name)) {
+                return true;
+            }
+        }
+        return directory != null && Files.exists(directory.resolve(name));
+    }
+
+    /**
+     * 渲染时写入的临时文件，开启磁盘缓存时与缓存文件在同一目录，放入缓存时直接重命名
+     */
+    public Path createTempFile(OutputFormat format) throws IOException {
+        String suffix = "." + format.getExtension();
+        if (directory != null) {
+            return Files.createTempFile(directory, TEMP_PREFIX, suffix);
+        }
+        return Files.createTempFile("swagger2word-render-", suffix);
+    }
+
+    /**
+     * 放入缓存，较小的文档同时放入内存
+     *
+     * @param temp {@link #createTempFile(OutputFormat)} 创建的临时文件
+     * @return 放入磁盘缓存时临时文件重命名为缓存文件并返回缓存文件；否则返回 null，临时文件仍由调用方删除
+     * @throws IOException
+     */
+    public Path put(String key, OutputFormat format, Path temp) throws IOException {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String name = fileName(key, format);
+        long size = Files.size(temp);
+        if (fitsInMemory(size)) {
+            putMemory(name, Files.readAllBytes(temp));
+        }
+        if (directory == null || size > properties.getDiskMaxBytes()) {
+            return null;
+        }
+        Path file = directory.resolve(name);
+        // 替换已有的文件时只累计差值，避免估算偏大而频繁扫描目录
+        long replaced = sizeIfExists(file);
+        // 其他请求或节点只会看到完整的文件
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        if (diskBytes.addAndGet(size - replaced) > properties.getDiskMaxBytes()) {
+            evictDisk();
+        }
+        return file;
+    }
+
+    private static long sizeIfExists(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private boolean fitsInMemory(long size) {
+        return size <= properties.getMemoryMaxEntryBytes() && size <= properties.getMemoryMaxBytes();
+    }
+
+    private synchronized void putMemory(String name, byte[] content) {
+        byte[] old = memory.remove(name);
+        if (old != null) {
+            memoryBytes -= old.length;
+        }
+        memory.put(name, content);
+        memoryBytes += content.length;
+        Iterator<byte[]> it = memory.values().iterator();
+        while (it.hasNext() && memoryBytes > properties.getMemoryMaxBytes()) {
+            byte[] eldest = it.next();
+            it.remove();
+            memoryBytes -= eldest.length;
+            memoryEvictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 重新扫描目录（包括其他节点写入的文件），删除最久未使用的文件直到低于上限的 90%
+     */
+    private void evictDisk() {
+        synchronized (diskLock) {
+            try {
+                List<CachedFile> files = new ArrayList<>();
+                long total = 0;
+                for (CachedFile file : scan()) {
+                    if (!file.isTemp()) {
+                        files.add(file);
+                        total += file.getSize();
+                    }
+                }
+                long target = properties.getDiskMaxBytes() / 10 * 9;
+                if (total > properties.getDiskMaxBytes()) {
+                    files.sort(Comparator.comparingLong(CachedFile::getLastModified));
+                    for (Iterator<CachedFile> it = files.iterator(); it.hasNext() && total > target; ) {
+                        CachedFile file = it.next();
+                        if (Files.deleteIfExists(file.getPath())) {
+                            diskEvictions.incrementAndGet();
+                        }
+                        total -= file.getSize();
+                    }
+                }
+                diskBytes.set(total);
+            } catch (IOException e) {
+                log.warn("failed to evict output cache {}", directory, e);
+            }
+        }
+    }
+
+    private List<CachedFile> scan() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        files.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                            path.getFileName().toString().startsWith(TEMP_PREFIX)));
+                    }
+                } catch (NoSuchFileException e) {
+                    // 已被其他节点删除
+                }
+            }
+        }
+        return files;
+    }
+
+    private static String fileName(String key, OutputFormat format) {
+        return HashUtils.hex(HashUtils.sha256().digest(key.getBytes(StandardCharsets.UTF_8))) + "." + format.getExtension();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memorySize", memory.size());
+        stats.put("memoryBytes", memoryBytes);
+        stats.put("directory", directory == null ? null : directory.toString());
+        stats.put("diskBytes", diskBytes.get());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("memoryEvictions", memoryEvictions.get());
+        stats.put("diskEvictions", diskEvictions.get());
+        return stats;
+    }
+
+    /**
+     * 命中的文档，content 和 file 只有一个不为 null，使用后关闭
+     */
+    @Data
+    public static class Entry implements Closeable {
+
+        /**
+         * 内存中的文档
+         */
+        private final byte[] content;
+
+        /**
+         * 磁盘上的文档
+         */
+        private final Path file;
+
+        /**
+         * 已打开的磁盘文档，按位置读取
+         */
+        private final FileChannel channel;
+
+        private final long length;
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    @Data
+    private static class CachedFile {
+
+        private final Path path;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final boolean temp;
+    }
+}
@@ -0,0 +1,286 @@
+package org.word.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.word.config.PrefetchProperties;
+import org.word.metrics.ConversionMetrics;
+import org.word.model.OutputFormat;
+import org.word.parser.OperationFilter;
+import org.word.service.PrefetchService;
+import org.word.service.RenderService;
+import org.word.service.WordService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个资源按各自的间隔加随机抖动定时刷新，同时刷新的资源数为定时线程池的线程数。
+ * 刷新通过 {@link WordService#tableList(String)} 获取，解析缓存过期后带 If-None-Match/If-Modified-Since 请求上游；
+ * 之后按 ETag 检查各格式的渲染结果缓存，文档有变化（或缓存已被淘汰）时重新渲染
+ *
+ * @author kevin
+ */
+@Slf4j
+@Service
+public class PrefetchServiceImpl implements PrefetchService {
+
+    /**
+     * /toWord 页面
+     */
+    private static final String PAGE = "html";
+
+    /**
+     * 预渲染的结果只放入缓存
+     */
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Autowired
+    private PrefetchProperties properties;
+    @Autowired
+    private WordService wordService;
+    @Autowired
+    private RenderService renderService;
+    @Autowired
+    private OutputCache outputCache;
+    @Autowired
+    private DocumentVersion documentVersion;
+    @Autowired
+    private ConversionMetrics metrics;
+
+    private final List<SourceState> sources = new ArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        Set<String> names = new HashSet<>();
+        for (PrefetchProperties.Source source : properties.getSources()) {
+            if (StringUtils.isBlank(source.getUrl())) {
+                throw new IllegalArgumentException("swagger.prefetch.sources: url is required");
+            }
+            String name = StringUtils.defaultIfBlank(source.getName(), source.getUrl());
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("swagger.prefetch.sources: duplicate name " + name);
+            }
+            for (String format : source.getFormats()) {
+                if (!PAGE.equalsIgnoreCase(format)) {
+                    OutputFormat.of(format);
+                }
+            }
+            sources.add(new SourceState(name, source));
+        }
+        if (sources.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadNo = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(1, properties.getConcurrency()), r -> {
+            Thread thread = new Thread(r, "prefetch-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动后尽快预热，各资源错开
+        for (SourceState state : sources) {
+            schedule(state, ThreadLocalRandom.current().nextLong(jitter(state.source).toMillis() + 1));
+        }
+        log.info("prefetching {} swagger sources", sources.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void schedule(SourceState state, long delayMillis) {
+        state.nextRefresh = System.currentTimeMillis() + delayMillis;
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    refresh(state);
+                } finally {
+                    schedule(state, nextDelay(state.source));
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+        }
+    }
+
+    private long nextDelay(PrefetchProperties.Source source) {
+        long interval = (source.getInterval() != null ? source.getInterval() : properties.getInterval()).toMillis();
+        long jitter = jitter(source).toMillis();
+        long delay = interval + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+        return Math.max(1000, delay);
+    }
+
+    private Duration jitter(PrefetchProperties.Source source) {
+        return source.getJitter() != null ? source.getJitter() : properties.getJitter();
+    }
+
+    private void refresh(SourceState state) {
+        String url = state.source.getUrl();
+        long start = System.currentTimeMillis();
+        state.running = true;
+        try {
+            Map<String, Object> result = wordService.tableList(url);
+            Object specHash = result.get("specHash");
+            if (specHash == null) {
+                throw new IllegalStateException("failed to fetch or parse " + url);
+            }
+            int rendered = 0;
+            if (outputCache.isEnabled()) {
+                for (String format : state.source.getFormats()) {
+                    if (prerender(url, result, specHash, format)) {
+                        rendered++;
+                    }
+                }
+            }
+            synchronized (state) {
+                if (!specHash.equals(state.specHash)) {
+                    state.specHash = specHash.toString();
+                    state.lastChange = start;
+                }
+                state.rendered = rendered;
+                state.error = null;
+            }
+            if (rendered > 0) {
+                log.info("prefetched {}: {} documents rendered in {} ms", state.name, rendered,
+                    System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            synchronized (state) {
+                state.failures++;
+                state.error = e.toString();
+            }
+            log.warn("prefetch {} failed", state.name, e);
+        } finally {
+            synchronized (state) {
+                state.lastRefresh = start;
+                state.durationMillis = System.currentTimeMillis() - start;
+                state.refreshes++;
+            }
+            state.running = false;
+        }
+    }
+
+    /**
+     * 按与 WordController 相同的变量和 ETag 渲染，已缓存时跳过
+     *
+     * @return 是否渲染
+     */
+    private boolean prerender(String url, Map<String, Object> result, Object specHash, String format) throws IOException {
+        boolean page = PAGE.equalsIgnoreCase(format);
+        OutputFormat outputFormat = page ? OutputFormat.DOC : OutputFormat.of(format);
+        int download = page ? 1 : 0;
+        String variant = page ? DocumentVersion.pageVariant(download, url) : outputFormat.getExtension();
+        String etag = documentVersion.etag(specHash, variant, OperationFilter.ALL);
+        if (outputCache.contains(etag, outputFormat)) {
+            return false;
+        }
+        Map<String, Object> variables = new HashMap<>(result);
+        variables.put("url", url);
+        variables.put("download", download);
+        if (page) {
+            variables.put("filterQuery", OperationFilter.ALL.toQueryString());
+        }
+        metrics.bind("prefetch", page ? PAGE : outputFormat.getExtension());
+        try {
+            renderService.render(etag, variables, outputFormat, stats -> {
+            }, DISCARD);
+        } finally {
+            metrics.unbind();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Map<String, Object>> status() {
+        List<Map<String, Object>> status = new ArrayList<>(sources.size());
+        for (SourceState state : sources) {
+            status.add(state.toStatus());
+        }
+        return status;
+    }
+
+    private static class SourceState {
+
+        private final String name;
+
+        private final PrefetchProperties.Source source;
+
+        private volatile boolean running;
+
+        private volatile long nextRefresh;
+
+        private String specHash;
+
+        private long lastRefresh;
+
+        private long lastChange;
+
+        private long durationMillis;
+
+        private long refreshes;
+
+        private long failures;
+
+        private int rendered;
+
+        private String error;
+
+        SourceState(String name, PrefetchProperties.Source source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        synchronized Map<String, Object> toStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("name", name);
+            status.put("url", source.getUrl());
+            status.put("formats", source.getFormats());
+            status.put("running", running);
+            status.put("nextRefresh", Instant.ofEpochMilli(nextRefresh).toString());
+            status.put("refreshes", refreshes);
+            status.put("failures", failures);
+            if (lastRefresh > 0) {
+                status.put("lastRefresh", Instant.ofEpochMilli(lastRefresh).toString());
+                status.put("durationMillis", durationMillis);
+                status.put("rendered", rendered);
+            }
+            if (lastChange > 0) {
+                status.put("lastChange", Instant.ofEpochMilli(lastChange).toString());
+            }
+            status.put("specHash", specHash);
+            status.put("error", error);
+            return status;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.word.service.impl;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.word.metrics.ConversionMetrics;
+import org.word.model.GroupStats;
+import org.word.model.OutputFormat;
+import org.word.model.Table;
+import org.word.service.RenderService;
+import org.word.utils.CountingOutputStream;
+import org.word.utils.SingleFlight;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @author kevin
+ */
+@Slf4j
+@Service
+public class RenderServiceImpl implements RenderService {
+
+    /**
+     * word.html 中单个分组的片段
+     */
+    private static final Set<String> GROUP_FRAGMENT = Collections.singleton("group");
+
+    @Autowired
+    private SpringTemplateEngine springTemplateEngine;
+    @Autowired
+    private ConversionMetrics metrics;
+    @Autowired
+    private GroupFragmentCache groupCache;
+    @Autowired
+    private DocumentVersion documentVersion;
+    @Autowired
+    private ConversionLimiter limiter;
+    @Autowired
+    private OutputCache outputCache;
+
+    @Value("${swagger.download.buffer-size:8192}")
+    private int bufferSize;
+
+    private final SingleFlight<SharedOutput> renderFlight = new SingleFlight<>("render");
+
+    @PostConstruct
+    public void init() {
+        metrics.coalescing(renderFlight);
+    }
+
+    @Override
+    public void render(String key, Map<String, Object> variables, OutputFormat format, Consumer<GroupStats> beforeWrite,
+                       OutputStream out) throws IOException {
+        if (key == null) {
+            write(renderToFile(variables, format), beforeWrite, out);
+            return;
+        }
+        boolean[] leader = new boolean[1];
+        SharedOutput shared = null;
+        try {
+            shared = renderFlight.execute(key + "-" + format.getExtension(), () -> {
+                leader[0] = true;
+                return renderCached(key, variables, format);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for render " + key);
+        } catch (IOException | RuntimeException e) {
+            if (leader[0]) {
+                throw e;
+            }
+            log.warn("shared render {} failed, rendering again", key, e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (shared == null) {
+            write(renderToFile(variables, format), beforeWrite, out);
+            return;
+        }
+        if (!leader[0]) {
+            metrics.outputBytes(shared.getLength());
+        }
+        write(shared, beforeWrite, out);
+    }
+
+    /**
+     * 渲染到文件后放入渲染结果缓存。渲染只受 CPU 和磁盘限制，第一个请求和等待的请求都在渲染完成后各自从文件输出
+     */
+    private SharedOutput renderCached(String key, Map<String, Object> variables, OutputFormat format)
+        throws IOException {
+        SharedOutput rendered = renderToFile(variables, format);
+        Path cached;
+        try {
+            cached = outputCache.put(key, format, rendered.getFile().toPath());
+        } catch (IOException e) {
+            log.warn("failed to cache output {}", key, e);
+            cached = null;
+        }
+        if (cached == null) {
+            return rendered;
+        }
+        // 打开的文件已随重命名成为缓存文件，不再删除，被淘汰后仍可读完
+        rendered.cached();
+        return rendered;
+    }
+
+    /**
+     * 在许可内渲染到临时文件，之后在许可外输出，慢速客户端不占用许可
+     */
+    private SharedOutput renderToFile(Map<String, Object> variables, OutputFormat format) throws IOException {
+        File file = outputCache.createTempFile(format).toFile();
+        boolean success = false;
+        try {
+            GroupStats stats = format == OutputFormat.DOC ? renderGroups(variables) : null;
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(file.toPath()), bufferSize)) {
+                render(variables, format, fileOut);
+            }
+            SharedOutput output = new SharedOutput(file, stats);
+            success = true;
+            return output;
+        } finally {
+            if (!success) {
+                delete(file);
+            }
+        }
+    }
+
+    private void write(SharedOutput shared, Consumer<GroupStats> beforeWrite, OutputStream out)
+        throws IOException {
+        try {
+            beforeWrite.accept(shared.getStats());
+            Timer.Sample sample = metrics.start();
+            shared.transferTo(out);
+            metrics.stage("write", sample);
+        } finally {
+            shared.release();
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            log.warn("failed to delete {}", file);
+        }
+    }
+
+    @Override
+    public void render(Map<String, Object> variables, OutputFormat format, OutputStream out) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        limiter.acquire();
+        Timer.Sample sample = metrics.start();
+        try {
+            if (format == OutputFormat.DOCX) {
+                DocxWriter.write(variables, counting);
+            } else {
+                Context context = new Context();
+                context.setVariables(variables);
+                // 直接渲染到输出流，内存占用只与缓冲区大小有关
+                Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), bufferSize);
+                springTemplateEngine.process("word", context, writer);
+                writer.flush();
+            }
+        } finally {
+            limiter.release();
+        }
+        metrics.stage("render", sample);
+        metrics.outputBytes(counting.getCount());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public GroupStats renderGroups(Map<String, Object> variables) {
+        Map<String, List<Table>> tableMap = (Map<String, List<Table>>)variables.get("tableMap");
+        if (!groupCache.isEnabled() || tableMap == null) {
+            return null;
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedIOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            return renderGroups(tableMap, variables);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private GroupStats renderGroups(Map<String, List<Table>> tableMap, Map<String, Object> variables) {
+        Timer.Sample sample = metrics.start();
+        List<String> groups = new ArrayList<>(tableMap.size());
+        int reused = 0;
+        // 模板修改后原来的片段不再使用
+        String template = documentVersion.getTemplateHash();
+        for (Map.Entry<String, List<Table>> entry : tableMap.entrySet()) {
+            String key = template + "-" + GroupFragmentCache.key(entry.getKey(), entry.getValue());
+            String fragment = groupCache.get(key);
+            if (fragment != null) {
+                reused++;
+            } else {
+                Context context = new Context();
+                context.setVariable("groupName", entry.getKey());
+                context.setVariable("tables", entry.getValue());
+                fragment = springTemplateEngine.process("word", GROUP_FRAGMENT, context);
+                groupCache.put(key, fragment);
+            }
+            groups.add(fragment);
+        }
+        variables.put("groups", groups);
+        metrics.stage("groups", sample);
+        groupCache.record(reused, groups.size() - reused);
+        return new GroupStats(reused, groups.size() - reused);
+    }
+
+    /**
+     * 渲染结果，打开的文件由各使用者按位置并发读取，最后一个使用者释放时关闭，没有放入缓存时同时删除
+     */
+    private static class SharedOutput implements SingleFlight.Shared {
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private final GroupStats stats;
+
+        /**
+         * 是否为临时文件，缓存文件不删除
+         */
+        private boolean temp = true;
+
+        private int refs = 1;
+
+        SharedOutput(File file, GroupStats stats) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.stats = stats;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        GroupStats getStats() {
+            return stats;
+        }
+
+        long getLength() throws IOException {
+            return channel.size();
+        }
+
+        synchronized void cached() {
+            temp = false;
+        }
+
+        void transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+
+        @Override
+        public synchronized void retain(int waiters) {
+            refs += waiters;
+        }
+
+        @Override
+        public synchronized void release() {
+            if (--refs == 0) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("failed to close {}", file, e);
+                }
+                if (temp) {
+                    delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.word.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.word.model.ModelAttr;
+import org.word.model.Request;
+import org.word.model.Row;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 把嵌套的属性树按深度优先顺序展开成行，编号规则与原来模板中的递归片段一致：
+ * 子属性编号为父编号加上自身序号，如 1.2.name，每深一层缩进加一。
+ * 使用显式栈展开，层级很深的模型也不会占用调用栈。没有展开的引用在说明中显示“参见 Xxx”。
+ *
+ * @author kevin
+ */
+public class RowFlattener {
+
+    private RowFlattener() {
+    }
+
+    /**
+     * 请求参数行：第一层为参数本身，不缩进；body 参数引用的模型属性从第一层缩进开始
+     *
+     * @param requestList
+     * @return
+     */
+    public static List<Row> requestRows(List<Request> requestList) {
+        if (requestList == null || requestList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = new ArrayList<>(requestList.size());
+        int count = 0;
+        for (Request request : requestList) {
+            count++;
+            rows.add(new Row(count + "." + request.getName(), request.getType(), request.getParamType(),
+                request.getRequire(), request.getRemark(), 0));
+            if (request.getModelAttr() != null) {
+                flatten(request.getModelAttr().getProperties(), count + ".", true, rows);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 返回属性行，第一层缩进一级
+     *
+     * @param properties
+     * @return
+     */
+    public static List<Row> responseRows(List<ModelAttr> properties) {
+        if (properties == null || properties.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = new ArrayList<>(properties.size());
+        flatten(properties, "", false, rows);
+        return rows;
+    }
+
+    private static void flatten(List<ModelAttr> properties, String prefix, boolean request, List<Row> rows) {
+        if (properties == null || properties.isEmpty()) {
+            return;
+        }
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(properties, prefix, 1));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (frame.index == frame.properties.size()) {
+                stack.pop();
+                continue;
+            }
+            ModelAttr p = frame.properties.get(frame.index++);
+            String number = frame.prefix + frame.index + ".";
+            rows.add(new Row(number + p.getName(), p.getType(), null, request ? p.getRequire() : null,
+                describe(p), frame.level));
+            if (p.getProperties() != null && !p.getProperties().isEmpty()) {
+                stack.push(new Frame(p.getProperties(), number, frame.level + 1));
+            }
+        }
+    }
+
+    /**
+     * 没有展开的引用在说明后面加上“参见 Xxx”
+     */
+    private static String describe(ModelAttr p) {
+        if (p.getSeeAlso() == null) {
+            return p.getDescription();
+        }
+        if (StringUtils.isBlank(p.getDescription())) {
+            return "参见 " + p.getSeeAlso();
+        }
+        return p.getDescription() + "（参见 " + p.getSeeAlso() + "）";
+    }
+
+    private static class Frame {
+
+        private final List<ModelAttr> properties;
+        private final String prefix;
+        private final int level;
+        private int index;
+
+        Frame(List<ModelAttr> properties, String prefix, int level) {
+            this.properties = properties;
+            this.prefix = prefix;
+            this.level = level;
+        }
+    }
+}
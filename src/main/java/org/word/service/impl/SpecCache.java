@@ -0,0 +1,122 @@
+package org.word.service.impl;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.word.config.SpecCacheProperties;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 url 缓存解析结果以及上游返回的 ETag/Last-Modified，按数量和总大小做 LRU 淘汰
+ *
+ * @author kevin
+ */
+@Component
+public class SpecCache {
+
+    private final SpecCacheProperties properties;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public SpecCache(SpecCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * 是否还在有效期内，有效期内不请求上游
+     */
+    public boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.getValidatedAt() < properties.getTtl().toMillis();
+    }
+
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * 上游返回 304，继续使用缓存的解析结果
+     */
+    public void revalidated(Entry entry) {
+        entry.setValidatedAt(System.currentTimeMillis());
+        revalidations.incrementAndGet();
+        hits.incrementAndGet();
+    }
+
+    public synchronized void put(String url, Entry entry) {
+        Entry old = entries.remove(url);
+        if (old != null) {
+            totalWeight -= old.getWeight();
+        }
+        if (entry.getWeight() > properties.getMaxWeight()) {
+            return;
+        }
+        entry.setValidatedAt(System.currentTimeMillis());
+        entries.put(url, entry);
+        totalWeight += entry.getWeight();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && (entries.size() > properties.getMaxEntries() || totalWeight > properties.getMaxWeight())) {
+            Entry eldest = it.next();
+            it.remove();
+            totalWeight -= eldest.getWeight();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("weight", totalWeight);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("revalidations", revalidations.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    @Data
+    public static class Entry {
+
+        /**
+         * tableList 的解析结果
+         */
+        private final Map<String, Object> result;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        /**
+         * 资源大小
+         */
+        private final long weight;
+
+        /**
+         * 最近一次和上游确认的时间
+         */
+        private volatile long validatedAt;
+    }
+}
@@ -1,35 +1,73 @@
 package org.word.service.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
+import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.BeanUtils;
+import org.apache.http.conn.ConnectionReleaseTrigger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.word.metrics.ConversionMetrics;
 import org.word.model.ModelAttr;
 import org.word.model.Request;
 import org.word.model.Response;
 import org.word.model.Table;
+import org.word.parser.OperationFilter;
+import org.word.parser.SwaggerSpec;
+import org.word.parser.SwaggerSpec.Definition;
+import org.word.parser.SwaggerSpec.Operation;
+import org.word.parser.SwaggerSpec.Parameter;
+import org.word.parser.SwaggerSpec.ResponseSpec;
+import org.word.parser.SwaggerSpec.Schema;
+import org.word.parser.SwaggerStreamParser;
 import org.word.service.WordService;
+import org.word.utils.CountingInputStream;
+import org.word.utils.GzipUtils;
+import org.word.utils.HashUtils;
 import org.word.utils.JsonUtils;
+import org.word.utils.SingleFlight;
+import org.word.utils.SpecLoadException;
+import org.word.utils.SpooledInput;
+import org.word.utils.SpecTooLargeException;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
+import io.micrometer.core.instrument.Timer;
+
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 /**
  * @Author XiuYin.Cui
  * @Date 2018/1/12
@@ -39,34 +77,227 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class WordServiceImpl implements WordService {
 
+    /**
+     * 上游返回其他 Content-Type 时不读取响应体，没有 Content-Type 时照常解析
+     */
+    private static final List<MediaType> SPEC_TYPES = Arrays.asList(MediaType.APPLICATION_JSON,
+        MediaType.valueOf("application/*+json"), MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM,
+        MediaType.valueOf("application/gzip"), MediaType.valueOf("application/x-gzip"));
+
     @Autowired
     private RestTemplate restTemplate;
+    @Autowired
+    private SpecCache specCache;
+    @Autowired
+    private ConversionMetrics metrics;
+    @Autowired
+    private ConversionLimiter limiter;
+
+    /**
+     * 并行生成Table的线程数，0 表示 CPU 核数，1 表示不并行
+     */
+    @Value("${swagger.convert.parallelism:0}")
+    private int parallelism;
+    /**
+     * 接口数达到该值才并行生成
+     */
+    @Value("${swagger.convert.parallel-threshold:200}")
+    private int parallelThreshold;
+
+    /**
+     * 模型属性最多展开的层数
+     */
+    @Value("${swagger.convert.max-depth:10}")
+    private int maxDepth;
+    /**
+     * 每个模型最多展开的嵌套属性数，超出的引用显示为“参见 Xxx”
+     */
+    @Value("${swagger.convert.max-nodes:500}")
+    private int maxNodes;
+    /**
+     * 上传或请求体中 Swagger json 解压后的最大字节数，超出返回 413
+     */
+    @Value("${swagger.convert.max-spec-bytes:268435456}")
+    private long maxSpecBytes;
+    /**
+     * 网络输入先读完再解析，不超过该大小时留在内存
+     */
+    @Value("${swagger.convert.spool-threshold:1048576}")
+    private int spoolThreshold;
+
+    /**
+     * 是否请求 gzip 压缩的 Swagger 资源，读取时解压
+     */
+    @Value("${swagger.http.compression:true}")
+    private boolean compression;
+
+    private ForkJoinPool forkJoinPool;
+
+    private final SingleFlight<Map<String, Object>> fetchFlight = new SingleFlight<>("fetch");
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (threads > 1) {
+            forkJoinPool = new ForkJoinPool(threads);
+        }
+        metrics.coalescing(fetchFlight);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+    }
 
     @Override
     public Map<String, Object> tableList(String swaggerUrl) {
-        Map<String, Object> resultMap = new HashMap<>();
+        return tableList(swaggerUrl, OperationFilter.ALL);
+    }
+
+    @Override
+    public Map<String, Object> tableList(String swaggerUrl, OperationFilter filter) {
         try {
-            String jsonStr = restTemplate.getForObject(swaggerUrl, String.class);
-            resultMap = tableListFromString(jsonStr);
-            log.debug(JsonUtils.writeJsonStr(resultMap));
-        } catch (Exception e) {
+            return load(swaggerUrl, filter);
+        } catch (SpecLoadException e) {
             log.error("parse error", e);
         }
-        return resultMap;
+        return new HashMap<>();
     }
 
     @Override
-    public Map<String, Object> tableListFromString(String jsonStr) {
-        Map<String, Object> resultMap = new HashMap<>();
-        List<Table> result = new ArrayList<>();
+    public Map<String, Object> load(String swaggerUrl, OperationFilter filter) {
+        // 筛选结果不同，按 url 和筛选条件分别缓存
+        String cacheKey = filter.isAll() ? swaggerUrl : swaggerUrl + "#" + filter.getKey();
+        SpecCache.Entry cached = specCache.isEnabled() ? specCache.get(cacheKey) : null;
+        if (cached != null && specCache.isFresh(cached)) {
+            specCache.recordHit();
+            return cached.getResult();
+        }
+        // 同一资源同时只请求和解析一次，其余请求等待并共享结果
         try {
-            Map<String, Object> map = getResultFromString(result, jsonStr);
-            Map<String, List<Table>> tableMap =
-                result.stream().parallel().collect(Collectors.groupingBy(Table::getTitle));
-            resultMap.put("tableMap", new TreeMap<>(tableMap));
-            resultMap.put("info", map.get("info"));
+            return fetchFlight.execute(cacheKey, () -> fetch(swaggerUrl, cacheKey, filter));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SpecLoadException(swaggerUrl, e);
+        } catch (SpecTooLargeException | SpecLoadException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SpecLoadException(swaggerUrl, e);
+        }
+    }
 
+    /**
+     * 异常由 {@link #load(String, OperationFilter)} 包装成 SpecLoadException
+     */
+    private Map<String, Object> fetch(String swaggerUrl, String cacheKey, OperationFilter filter) throws IOException {
+        SpecCache.Entry cached = specCache.isEnabled() ? specCache.get(cacheKey) : null;
+        Timer.Sample fetch = metrics.start();
+        Fetched fetched = restTemplate.execute(swaggerUrl, HttpMethod.GET, request -> {
+            HttpHeaders headers = request.getHeaders();
+            headers.set(HttpHeaders.ACCEPT, "application/json, */*;q=0.8");
+            if (compression) {
+                headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            }
+            // 带上缓存的校验信息，上游资源没有变化时返回 304
+            if (cached != null && cached.getEtag() != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+            }
+            if (cached != null && cached.getLastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }, response -> read(swaggerUrl, response, cached != null));
+        metrics.stage("fetch", fetch);
+        if (fetched == null) {
+            specCache.revalidated(cached);
+            return cached.getResult();
+        }
+        // 连接已归还，解析时才占用许可
+        Map<String, Object> resultMap;
+        long bytes;
+        try (SpooledInput body = fetched.getBody(); InputStream in = body.open()) {
+            CountingInputStream counting = new CountingInputStream(GzipUtils.decompressIfGzip(in), maxSpecBytes);
+            resultMap = parse(counting, fetched.getCharset(), filter);
+            bytes = counting.getCount();
+        }
+        if (specCache.isEnabled()) {
+            specCache.recordMiss();
+            if (!resultMap.isEmpty()) {
+                specCache.put(cacheKey, new SpecCache.Entry(resultMap, fetched.getEtag(),
+                    fetched.getLastModified(), bytes));
+            }
+        }
+        if (log.isDebugEnabled()) {
             log.debug(JsonUtils.writeJsonStr(resultMap));
+        }
+        return resultMap;
+    }
+
+    /**
+     * 检查响应头后读完响应体（不超过 swagger.convert.spool-threshold 时留在内存），不在这里解析，
+     * 慢速上游不占用解析许可。Content-Type 不像 Swagger 文档（例如登录页面）、Content-Length 或已读取的大小超过
+     * swagger.convert.max-spec-bytes 时直接断开连接，不再读取剩余内容
+     *
+     * @param revalidating 是否带了校验信息
+     * @return 上游返回 304 时返回 null
+     */
+    private Fetched read(String swaggerUrl, ClientHttpResponse response, boolean revalidating) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        if (revalidating && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return null;
+        }
+        InputStream body = response.getBody();
+        MediaType contentType = headers.getContentType();
+        if (contentType != null && SPEC_TYPES.stream().noneMatch(type -> type.includes(contentType))) {
+            abort(body, "content-type");
+            throw new IOException("unexpected Content-Type " + contentType + " from " + swaggerUrl);
+        }
+        if (headers.getContentLength() > maxSpecBytes) {
+            abort(body, "too-large");
+            throw new SpecTooLargeException(maxSpecBytes);
+        }
+        CountingInputStream received = new CountingInputStream(body);
+        SpooledInput spooled;
+        try {
+            spooled = SpooledInput.spool(received, maxSpecBytes, spoolThreshold);
+        } catch (SpecTooLargeException e) {
+            abort(body, "too-large");
+            throw e;
+        } finally {
+            metrics.fetchBytes(received.getCount());
+        }
+        Charset charset = contentType == null || contentType.getCharset() == null
+            ? StandardCharsets.UTF_8 : contentType.getCharset();
+        return new Fetched(spooled, charset, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * 关闭响应时默认读完剩余内容以复用连接，这里直接断开
+     */
+    private void abort(InputStream body, String reason) {
+        metrics.fetchAborted(reason);
+        if (body instanceof ConnectionReleaseTrigger) {
+            try {
+                ((ConnectionReleaseTrigger)body).abortConnection();
+            } catch (IOException e) {
+                log.debug("abort connection", e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> tableListFromString(String jsonStr) {
+        return tableListFromString(jsonStr, OperationFilter.ALL);
+    }
+
+    @Override
+    public Map<String, Object> tableListFromString(String jsonStr, OperationFilter filter) {
+        Map<String, Object> resultMap = new HashMap<>();
+        try (JsonParser parser = JsonUtils.createParser(jsonStr)) {
+            metrics.specBytes(ConversionMetrics.utf8Length(jsonStr));
+            resultMap = tableListFromParser(parser, filter);
+            resultMap.put("specHash", HashUtils.hex(HashUtils.sha256().digest(jsonStr.getBytes(StandardCharsets.UTF_8))));
         } catch (Exception e) {
             log.error("parse error", e);
         }
@@ -75,163 +306,287 @@ public class WordServiceImpl implements WordService {
 
     @Override
     public Map<String, Object> tableList(MultipartFile jsonFile) {
-        Map<String, Object> resultMap = new HashMap<>();
-        List<Table> result = new ArrayList<>();
+        return tableList(jsonFile, OperationFilter.ALL);
+    }
+
+    @Override
+    public Map<String, Object> tableList(MultipartFile jsonFile, OperationFilter filter) {
+        // 上传内容超过阈值时已落盘，直接从流中解析，不再复制到字节数组和字符串
+        try (InputStream in = jsonFile.getInputStream()) {
+            return tableList(in, filter);
+        } catch (IOException e) {
+            log.error("parse error", e);
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<String, Object> tableList(InputStream in) {
+        return tableList(in, OperationFilter.ALL);
+    }
+
+    @Override
+    public Map<String, Object> tableList(InputStream in, OperationFilter filter) {
         try {
-            String jsonStr = new String(jsonFile.getBytes());
-            resultMap = tableListFromString(jsonStr);
-            log.debug(JsonUtils.writeJsonStr(resultMap));
+            return load(in, filter);
+        } catch (SpecLoadException e) {
+            log.error("parse error", e);
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<String, Object> load(InputStream in, OperationFilter filter) {
+        try {
+            return parse(new CountingInputStream(GzipUtils.decompressIfGzip(in), maxSpecBytes),
+                StandardCharsets.UTF_8, filter);
+        } catch (SpecTooLargeException e) {
+            throw e;
         } catch (Exception e) {
+            throw new SpecLoadException("swagger json", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> tableListFromBody(InputStream in, OperationFilter filter) {
+        try (SpooledInput body = SpooledInput.spool(in, maxSpecBytes, spoolThreshold);
+             InputStream spooled = body.open()) {
+            return tableList(spooled, filter);
+        } catch (IOException e) {
             log.error("parse error", e);
         }
+        return new HashMap<>();
+    }
+
+    /**
+     * 边读边计算摘要，用于生成 ETag
+     *
+     * @param counting 解压后的内容，超过 max-spec-bytes 时抛出 SpecTooLargeException
+     */
+    private Map<String, Object> parse(CountingInputStream counting, Charset charset, OperationFilter filter)
+        throws IOException {
+        DigestInputStream digest = new DigestInputStream(counting, HashUtils.sha256());
+        Map<String, Object> resultMap;
+        try (JsonParser parser = JsonUtils.createParser(new InputStreamReader(digest, charset))) {
+            resultMap = tableListFromParser(parser, filter);
+        }
+        resultMap.put("specHash", HashUtils.hex(digest.getMessageDigest().digest()));
+        metrics.specBytes(counting.getCount());
         return resultMap;
     }
 
-    private Map<String, Object> getResultFromString(List<Table> result, String jsonStr) throws IOException {
-        // convert JSON string to Map
-        Map<String, Object> map = JsonUtils.readValue(jsonStr, HashMap.class);
+    /**
+     * 解析期间占用许可，parser 的输入应已在内存或本地文件中
+     */
+    private Map<String, Object> tableListFromParser(JsonParser parser, OperationFilter filter) throws IOException {
+        limiter.acquire();
+        try {
+            return convert(parser, filter);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private Map<String, Object> convert(JsonParser parser, OperationFilter filter) throws IOException {
+        // 流式解析 JSON，不再生成整棵 Map 树，不需要的路径直接跳过
+        Timer.Sample sample = metrics.start();
+        SwaggerSpec spec = SwaggerStreamParser.parse(parser, filter);
+        metrics.stage("parse", sample);
+        metrics.specPaths(spec.getOperations().size());
+        metrics.specDefinitions(spec.getDefinitions() == null ? 0 : spec.getDefinitions().size());
+
+        List<Table> result = buildTables(createContext(spec));
+        Map<String, List<Table>> tableMap =
+            result.stream().parallel().collect(Collectors.groupingBy(Table::getTitle));
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("tableMap", new TreeMap<>(tableMap));
+        resultMap.put("info", spec.getInfo());
 
-        // 解析model
-        Map<String, ModelAttr> definitinMap = parseDefinitions(map);
+        if (log.isDebugEnabled()) {
+            log.debug(JsonUtils.writeJsonStr(resultMap));
+        }
+        return resultMap;
+    }
 
-        // 解析paths
-        Map<String, Map<String, Object>> paths = (Map<String, Map<String, Object>>)map.get("paths");
-        if (paths != null) {
-            Iterator<Entry<String, Map<String, Object>>> it = paths.entrySet().iterator();
-            while (it.hasNext()) {
-                Entry<String, Map<String, Object>> path = it.next();
+    /**
+     * 解析模型，创建这次转换的上下文
+     *
+     * @param spec
+     * @return
+     */
+    ConversionContext createContext(SwaggerSpec spec) {
+        Timer.Sample sample = metrics.start();
+        ModelDefinitions definitions = parseDefinitions(spec);
+        metrics.stage("definitions", sample);
+        return new ConversionContext(spec, definitions);
+    }
+
+    /**
+     * 生成所有 Table，接口较多时并行生成，结果保持文档中的顺序
+     *
+     * @param context
+     * @return
+     */
+    private List<Table> buildTables(ConversionContext context) throws IOException {
+        Timer.Sample sample = metrics.start();
+        List<Operation> operations = context.getSpec().getOperations();
+        List<Table> result;
+        if (forkJoinPool != null && operations.size() >= parallelThreshold) {
+            try {
+                result = forkJoinPool.submit(() -> operations.parallelStream()
+                    .map(operation -> buildTable(operation, context))
+                    .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("conversion interrupted");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException)cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        } else {
+            result = new ArrayList<>(operations.size());
+            for (Operation operation : operations) {
+                result.add(buildTable(operation, context));
+            }
+        }
+        metrics.stage("tables", sample);
+        // 示例在生成 Table 时生成，可能并行，单独累计耗时
+        metrics.stage("examples", context.getExampleNanos());
+        return result;
+    }
 
-                Iterator<Entry<String, Object>> it2 = path.getValue().entrySet().iterator();
-                // 1.请求路径
-                String url = path.getKey();
+    /**
+     * 根据一个请求路径生成Table
+     *
+     * @param operation
+     * @param context
+     * @return
+     */
+    Table buildTable(Operation operation, ConversionContext context) {
+        ModelDefinitions definitions = context.getDefinitions();
+        // 1.请求路径
+        String url = operation.getUrl();
 
-                // 2.请求方式，类似为 get,post,delete,put 这样
-                String requestType = StringUtils.join(path.getValue().keySet(), ",");
+        // 2.请求方式，类似为 get,post,delete,put 这样
+        String requestType = operation.getRequestType();
 
-                // 3. 不管有几种请求方式，都只解析第一种
-                Entry<String, Object> firstRequest = it2.next();
-                Map<String, Object> content = (Map<String, Object>)firstRequest.getValue();
+        // 3. 不管有几种请求方式，都只解析第一种，由解析器完成
 
-                // 4. 大标题（类说明）
-                String title = String.valueOf(((List)content.get("tags")).get(0));
+        // 4. 大标题（类说明），按标签筛选时为符合条件的标签
+        String title = operation.getMatchedTag() != null ? operation.getMatchedTag()
+            : String.valueOf(operation.getTags().get(0));
 
-                // 5.小标题 （方法说明）
-                String tag = String.valueOf(content.get("summary"));
+        // 5.小标题 （方法说明）
+        String tag = String.valueOf(operation.getSummary());
 
-                // 6.接口描述
-                String description = String.valueOf(content.get("summary"));
+        // 6.接口描述
+        String description = String.valueOf(operation.getSummary());
 
-                // 7.请求参数格式，类似于 multipart/form-data
-                String requestForm = "";
-                List<String> consumes = (List)content.get("consumes");
-                if (consumes != null && consumes.size() > 0) {
-                    // requestForm = StringUtils.join(consumes, ",");
-                    requestForm = consumes.get(0);
-                }
+        // 7.请求参数格式，类似于 multipart/form-data
+        String requestForm = "";
+        List<String> consumes = operation.getConsumes();
+        if (consumes != null && consumes.size() > 0) {
+            requestForm = consumes.get(0);
+        }
 
-                // 8.返回参数格式，类似于 application/json
-                String responseForm = "";
-                List<String> produces = (List)content.get("produces");
-                if (produces != null && produces.size() > 0) {
-                    // responseForm = StringUtils.join(produces, ",");
-                    responseForm = produces.get(0);
-                }
+        // 8.返回参数格式，类似于 application/json
+        String responseForm = "";
+        List<String> produces = operation.getProduces();
+        if (produces != null && produces.size() > 0) {
+            responseForm = produces.get(0);
+        }
 
-                // 9. 请求体
-                List<LinkedHashMap> parameters = (ArrayList)content.get("parameters");
-
-                // 10.返回体
-                Map<String, Object> responses = (LinkedHashMap)content.get("responses");
-
-                // 封装Table
-                Table table = new Table();
-
-                table.setTitle(title);
-                table.setUrl(url);
-                table.setTag(tag);
-                table.setDescription(description);
-                table.setRequestForm(requestForm);
-                table.setResponseForm(responseForm);
-                table.setRequestType(requestType);
-                table.setRequestList(processRequestList(parameters, definitinMap));
-                table.setResponseList(processResponseCodeList(responses));
-
-                // 取出来状态是200时的返回值
-                Map<String, Object> obj = (Map<String, Object>)responses.get("200");
-                if (obj != null && obj.get("schema") != null) {
-                    table.setModelAttr(processResponseModelAttrs(obj, definitinMap));
-                }
+        // 9. 请求体
+        List<Parameter> parameters = operation.getParameters();
+
+        // 10.返回体
+        Map<String, ResponseSpec> responses = operation.getResponses();
+
+        // 封装Table
+        Table table = new Table();
+
+        table.setTitle(title);
+        table.setUrl(url);
+        table.setTag(tag);
+        table.setDescription(description);
+        table.setRequestForm(requestForm);
+        table.setResponseForm(responseForm);
+        table.setRequestType(requestType);
+        table.setRequestList(processRequestList(parameters, definitions));
+        table.setResponseList(processResponseCodeList(responses));
+
+        // 取出来状态是200时的返回值
+        ResponseSpec obj = responses.get("200");
+        if (obj != null && obj.getSchema() != null) {
+            table.setModelAttr(processResponseModelAttrs(obj, definitions));
+        }
 
-                // 示例
-                table.setRequestParam(processRequestParam(table.getRequestList()));
-                table.setResponseParam(processResponseParam(obj, definitinMap));
+        // 嵌套属性预先展开成行，模板中不再递归
+        table.setRequestRows(RowFlattener.requestRows(table.getRequestList()));
+        table.setResponseRows(definitions.getResponseRows(table.getModelAttr()));
 
-                result.add(table);
-            }
+        // 示例
+        long start = System.nanoTime();
+        try {
+            table.setRequestParam(processRequestParam(table.getRequestList(), context.getExamples()));
+            table.setResponseParam(processResponseParam(obj, definitions, context.getExamples()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            context.addExampleNanos(System.nanoTime() - start);
         }
-        return map;
+        return table;
     }
 
     /**
      * 处理请求参数列表
      *
      * @param parameters
-     * @param definitinMap
+     * @param definitions
      * @return
      */
-    private List<Request> processRequestList(List<LinkedHashMap> parameters, Map<String, ModelAttr> definitinMap) {
+    private List<Request> processRequestList(List<Parameter> parameters, ModelDefinitions definitions) {
         List<Request> requestList = new ArrayList<>();
         if (!CollectionUtils.isEmpty(parameters)) {
-            for (Map<String, Object> param : parameters) {
-                if (param.get("description") == null || StringUtils.isBlank(param.get("description").toString())) {
+            for (Parameter param : parameters) {
+                if (StringUtils.isBlank(param.getDescription())) {
                     continue;
                 }
-                Object in = param.get("in");
+                String in = param.getIn();
                 Request request = new Request();
-                request.setName(String.valueOf(param.get("name")));
-                request.setType(param.get("type") == null ? "object" : param.get("type").toString());
-                if (param.get("format") != null) {
-                    request.setType(request.getType() + "(" + param.get("format") + ")");
+                request.setName(String.valueOf(param.getName()));
+                request.setType(param.getType() == null ? "object" : param.getType());
+                if (param.getFormat() != null) {
+                    request.setType(request.getType() + "(" + param.getFormat() + ")");
                 }
                 request.setParamType(String.valueOf(in));
                 // 考虑对象参数类型
                 if (in != null && "body".equals(in)) {
-                    Map<String, Object> schema = (Map)param.get("schema");
-                    Object ref = schema.get("$ref");
+                    Schema schema = param.getSchema();
+                    String ref = schema.getRef();
                     // 数组情况另外处理
-                    if (schema.get("type") != null && "array".equals(schema.get("type"))) {
-                        ref = ((Map)schema.get("items")).get("$ref");
+                    if (schema.getType() != null && "array".equals(schema.getType())) {
+                        ref = schema.getItems().getRef();
                         request.setType("array");
                     }
                     if (ref != null) {
-                        request.setType(request.getType() + ":" + ref.toString().replaceAll("#/definitions/", ""));
-
-                        ModelAttr modelAttr = new ModelAttr();
-                        ModelAttr origin = definitinMap.get(ref);
-                        if (origin != null) {
-                            BeanUtils.copyProperties(origin, modelAttr, "properties");
-
-                            List<ModelAttr> props = new ArrayList<>();
-                            if (origin.getProperties() != null) {
-                                for (ModelAttr sub : origin.getProperties()) {
-                                    if (sub.getDescription() == null || StringUtils.isBlank(sub.getDescription())) {
-                                        continue;
-                                    }
-                                    props.add(sub);
-                                }
-                            }
-                            modelAttr.setProperties(props);
-                            request.setModelAttr(modelAttr);
-                        } else {
-                            request.setModelAttr(origin);
-                        }
+                        request.setType(request.getType() + ":" + ref.replaceAll("#/definitions/", ""));
+
+                        // 同一个模型的视图在所有请求之间共享
+                        request.setModelAttr(definitions.getRequestModel(ref));
                     }
                 } else {
                     // 如果其他参数形式中有array，处理下基本类型的
                     if ("array".equals(request.getType())) {
-                        Object obj = param.get("items");
-                        if (obj != null) {
-                            String itemType = (String)((Map)obj).get("type");
+                        Schema items = param.getItems();
+                        if (items != null) {
+                            String itemType = items.getType();
                             if (itemType != null) {
                                 request.setType("array:" + itemType);
                             }
@@ -241,15 +596,15 @@ public class WordServiceImpl implements WordService {
                 }
                 // 是否必填
                 request.setRequire(false);
-                if (param.get("required") != null) {
-                    request.setRequire((Boolean)param.get("required"));
+                if (param.getRequired() != null) {
+                    request.setRequire(param.getRequired());
                 }
                 // 参数例子
-                if (param.get("x-example") != null) {
-                    request.setExample(param.get("x-example").toString());
+                if (param.getExample() != null) {
+                    request.setExample(param.getExample());
                 }
                 // 参数说明
-                request.setRemark(String.valueOf(param.get("description")));
+                request.setRemark(String.valueOf(param.getDescription()));
                 requestList.add(request);
             }
         }
@@ -263,23 +618,23 @@ public class WordServiceImpl implements WordService {
      *            全部状态码返回对象
      * @return
      */
-    private List<Response> processResponseCodeList(Map<String, Object> responses) {
+    private List<Response> processResponseCodeList(Map<String, ResponseSpec> responses) {
         List<Response> responseList = new ArrayList<>();
-        Iterator<Map.Entry<String, Object>> resIt = responses.entrySet().iterator();
+        Iterator<Map.Entry<String, ResponseSpec>> resIt = responses.entrySet().iterator();
         while (resIt.hasNext()) {
-            Map.Entry<String, Object> entry = resIt.next();
+            Map.Entry<String, ResponseSpec> entry = resIt.next();
             Response response = new Response();
             // 状态码 200 201 401 403 404 这样
             if (!entry.getKey().equals("200")) {
                 continue;
             }
             response.setName(entry.getKey());
-            LinkedHashMap<String, Object> statusCodeInfo = (LinkedHashMap)entry.getValue();
-            response.setDescription(String.valueOf(statusCodeInfo.get("description")));
-            Object schema = statusCodeInfo.get("schema");
+            ResponseSpec statusCodeInfo = entry.getValue();
+            response.setDescription(String.valueOf(statusCodeInfo.getDescription()));
+            Schema schema = statusCodeInfo.getSchema();
             if (schema != null) {
-                Object originalRef = ((LinkedHashMap)schema).get("originalRef");
-                response.setRemark(originalRef == null ? "" : originalRef.toString());
+                String originalRef = schema.getOriginalRef();
+                response.setRemark(originalRef == null ? "" : originalRef);
             }
             responseList.add(response);
         }
@@ -290,169 +645,102 @@ public class WordServiceImpl implements WordService {
      * 处理返回属性列表
      *
      * @param responseObj
-     * @param definitinMap
+     * @param definitions
      * @return
      */
-    private ModelAttr processResponseModelAttrs(Map<String, Object> responseObj, Map<String, ModelAttr> definitinMap) {
-        Map<String, Object> schema = (Map<String, Object>)responseObj.get("schema");
-        String type = (String)schema.get("type");
+    private ModelAttr processResponseModelAttrs(ResponseSpec responseObj, ModelDefinitions definitions) {
+        Schema schema = responseObj.getSchema();
+        String type = schema.getType();
         String ref = null;
         // 数组
         if ("array".equals(type)) {
-            Map<String, Object> items = (Map<String, Object>)schema.get("items");
-            if (items != null && items.get("$ref") != null) {
-                ref = (String)items.get("$ref");
+            Schema items = schema.getItems();
+            if (items != null && items.getRef() != null) {
+                ref = items.getRef();
             }
         }
         // 对象
-        if (schema.get("$ref") != null) {
-            ref = (String)schema.get("$ref");
+        if (schema.getRef() != null) {
+            ref = schema.getRef();
         }
 
         // 其他类型
         ModelAttr modelAttr = new ModelAttr();
         modelAttr.setType(StringUtils.defaultIfBlank(type, StringUtils.EMPTY));
 
-        if (StringUtils.isNotBlank(ref) && definitinMap.get(ref) != null) {
-            modelAttr = new ModelAttr();
-            ModelAttr origin = definitinMap.get(ref);
-            BeanUtils.copyProperties(origin, modelAttr, "properties");
-            List<ModelAttr> props = new ArrayList<>();
-            if (origin.getProperties() != null) {
-                for (ModelAttr sub : origin.getProperties()) {
-                    if (sub.getDescription() == null || StringUtils.isBlank(sub.getDescription())) {
-                        continue;
-                    }
-                    props.add(recursiveProps(sub));
-                }
-            }
-            modelAttr.setProperties(props);
-        }
-        return modelAttr;
-    }
-    
-    private ModelAttr recursiveProps(ModelAttr origin) {
-        ModelAttr modelAttr = new ModelAttr();
-        BeanUtils.copyProperties(origin, modelAttr, "properties");
-        List<ModelAttr> props = new ArrayList<>();
-        if (origin.getProperties() != null) {
-            for (ModelAttr sub : origin.getProperties()) {
-                if (sub.getDescription() == null || StringUtils.isBlank(sub.getDescription())) {
-                    continue;
-                }
-                props.add(recursiveProps(sub));
-            }
+        if (StringUtils.isNotBlank(ref) && definitions.get(ref) != null) {
+            modelAttr = definitions.getResponseModel(ref);
         }
-        modelAttr.setProperties(props);
         return modelAttr;
-        
     }
 
     /**
      * 解析Definition
      *
-     * @param map
+     * @param spec
      * @return
      */
-    private Map<String, ModelAttr> parseDefinitions(Map<String, Object> map) {
-        Map<String, Map<String, Object>> definitions = (Map<String, Map<String, Object>>)map.get("definitions");
-        Map<String, ModelAttr> definitinMap = new HashMap<>(256);
+    ModelDefinitions parseDefinitions(SwaggerSpec spec) {
+        Map<String, Definition> definitions = spec.getDefinitions();
         if (definitions != null) {
-            Iterator<String> modelNameIt = definitions.keySet().iterator();
-            while (modelNameIt.hasNext()) {
-                String modeName = modelNameIt.next();
-                getAndPutModelAttr(definitions, definitinMap, modeName);
-            }
+            // 只展开要转换的接口引用到的模型
+            definitions = ModelResolver.reachable(definitions, spec.getOperations());
         }
-        return definitinMap;
-    }
-
-    /**
-     * 递归生成ModelAttr 对$ref类型设置具体属性
-     */
-    private ModelAttr getAndPutModelAttr(Map<String, Map<String, Object>> swaggerMap, Map<String, ModelAttr> resMap,
-        String modeName) {
-        ModelAttr modeAttr;
-        if ((modeAttr = resMap.get("#/definitions/" + modeName)) == null) {
-            modeAttr = new ModelAttr();
-            resMap.put("#/definitions/" + modeName, modeAttr);
-        } else if (modeAttr.isCompleted()) {
-            return resMap.get("#/definitions/" + modeName);
-        }
-        Map<String, Object> modeProperties = (Map<String, Object>)swaggerMap.get(modeName).get("properties");
-        if (modeProperties == null) {
-            return null;
+        if (definitions == null || definitions.isEmpty()) {
+            metrics.specDepth(0);
+            return new ModelDefinitions(new HashMap<>(0));
         }
-        Iterator<Entry<String, Object>> mIt = modeProperties.entrySet().iterator();
-
-        List<ModelAttr> attrList = new ArrayList<>();
-        // 解析属性
-        while (mIt.hasNext()) {
-            Entry<String, Object> mEntry = mIt.next();
-            Map<String, Object> attrInfoMap = (Map<String, Object>)mEntry.getValue();
-            ModelAttr child = new ModelAttr();
-            child.setName(mEntry.getKey());
-            child.setType((String)attrInfoMap.get("type"));
-            if (attrInfoMap.get("format") != null) {
-                child.setType(child.getType() + "(" + attrInfoMap.get("format") + ")");
-            }
-            child.setType(StringUtils.defaultIfBlank(child.getType(), "object"));
-
-            Object ref = attrInfoMap.get("$ref");
-            Object items = attrInfoMap.get("items");
-            if (ref != null || (items != null && (ref = ((Map)items).get("$ref")) != null)) {
-                String refName = ref.toString();
-                // 截取 #/definitions/ 后面的
-                String clsName = refName.substring(14);
-                modeAttr.setCompleted(true);
-                ModelAttr refModel = getAndPutModelAttr(swaggerMap, resMap, clsName);
-                if (refModel != null) {
-                    child.setProperties(refModel.getProperties());
-                }
-                child.setType(child.getType() + ":" + clsName);
-            }
-            child.setDescription((String)attrInfoMap.get("description"));
-            attrList.add(child);
+        ModelResolver resolver = new ModelResolver(definitions, maxDepth, maxNodes);
+        Map<String, ModelAttr> definitinMap = resolver.resolve();
+        metrics.specDepth(resolver.getDepth());
+        if (resolver.getTruncated() > 0) {
+            log.debug("{} definitions in cycles, {} references not expanded", resolver.getCyclic(),
+                resolver.getTruncated());
         }
-        Object title = swaggerMap.get(modeName).get("title");
-        Object description = swaggerMap.get(modeName).get("description");
-        modeAttr.setClassName(title == null ? "" : title.toString());
-        modeAttr.setDescription(description == null ? "" : description.toString());
-        modeAttr.setProperties(attrList);
-        return modeAttr;
+        return new ModelDefinitions(definitinMap);
     }
 
     /**
      * 处理返回值
      *
      * @param responseObj
+     * @param definitions
+     * @param examples
      * @return
      */
-    private String processResponseParam(Map<String, Object> responseObj, Map<String, ModelAttr> definitinMap)
+    String processResponseParam(ResponseSpec responseObj, ModelDefinitions definitions, ExampleCache examples)
         throws JsonProcessingException {
-        if (responseObj != null && responseObj.get("schema") != null) {
-            Map<String, Object> schema = (Map<String, Object>)responseObj.get("schema");
-            String type = (String)schema.get("type");
+        if (responseObj != null && responseObj.getSchema() != null) {
+            Schema schema = responseObj.getSchema();
+            String type = schema.getType();
             String ref = null;
             // 数组
             if ("array".equals(type)) {
-                Map<String, Object> items = (Map<String, Object>)schema.get("items");
-                if (items != null && items.get("$ref") != null) {
-                    ref = (String)items.get("$ref");
+                Schema items = schema.getItems();
+                if (items != null && items.getRef() != null) {
+                    ref = items.getRef();
                 }
             }
             // 对象
-            if (schema.get("$ref") != null) {
-                ref = (String)schema.get("$ref");
+            if (schema.getRef() != null) {
+                ref = schema.getRef();
             }
             if (StringUtils.isNotEmpty(ref)) {
-                ModelAttr modelAttr = definitinMap.get(ref);
+                // 返回值示例只取决于引用的模型，同一个模型只序列化一次
+                String cached = examples.getResponseJson(ref);
+                if (cached != null) {
+                    return cached;
+                }
+                ModelAttr modelAttr = definitions.get(ref);
                 if (modelAttr != null && !CollectionUtils.isEmpty(modelAttr.getProperties())) {
                     Map<String, Object> responseMap = new HashMap<>(8);
                     for (ModelAttr subModelAttr : modelAttr.getProperties()) {
-                        responseMap.put(subModelAttr.getName(), getValue(subModelAttr.getType(), null, subModelAttr));
+                        responseMap.put(subModelAttr.getName(),
+                            getValue(subModelAttr.getType(), null, subModelAttr, examples));
                     }
-                    return JsonUtils.writeJsonStr(responseMap);
+                    String json = JsonUtils.writeJsonStr(responseMap);
+                    examples.putResponseJson(ref, json);
+                    return json;
                 }
             }
         }
@@ -463,9 +751,10 @@ public class WordServiceImpl implements WordService {
      * 封装请求体
      *
      * @param list
+     * @param examples
      * @return
      */
-    private String processRequestParam(List<Request> list) throws IOException {
+    String processRequestParam(List<Request> list, ExampleCache examples) throws IOException {
         Map<String, Object> headerMap = new LinkedHashMap<>();
         Map<String, Object> queryMap = new LinkedHashMap<>();
         Map<String, Object> formMap = new LinkedHashMap<>();
@@ -475,7 +764,7 @@ public class WordServiceImpl implements WordService {
                 String name = request.getName();
                 String paramType = request.getParamType();
                 String example = request.getExample();
-                Object value = getValue(request.getType(), example, request.getModelAttr());
+                Object value = getValue(request.getType(), example, request.getModelAttr(), examples);
                 switch (paramType) {
                     case "header":
                         headerMap.put(name, value);
@@ -505,8 +794,8 @@ public class WordServiceImpl implements WordService {
         }
         if (!jsonMap.isEmpty()) {
             if (jsonMap.size() == 1) {
-                for (Entry<String, Object> entry : jsonMap.entrySet()) {
-                    res += " -d '" + JsonUtils.writeJsonStr(entry.getValue()) + "'";
+                for (Map.Entry<String, Object> entry : jsonMap.entrySet()) {
+                    res += " -d '" + examples.toJson(entry.getValue()) + "'";
                 }
             } else {
                 res += " -d '" + JsonUtils.writeJsonStr(jsonMap) + "'";
@@ -552,9 +841,25 @@ public class WordServiceImpl implements WordService {
      *            示例
      * @param modelAttr
      *            引用的类型
+     * @param examples
+     *            示例缓存，引用了模型的字段按类型和属性列表缓存
      * @return
      */
-    private Object getValue(String type, String example, ModelAttr modelAttr) {
+    private Object getValue(String type, String example, ModelAttr modelAttr, ExampleCache examples) {
+        if (modelAttr == null || CollectionUtils.isEmpty(modelAttr.getProperties())) {
+            return buildValue(type, example, modelAttr, examples);
+        }
+        Object value = examples.get(type, modelAttr);
+        if (value == null) {
+            value = buildValue(type, example, modelAttr, examples);
+            if (value != null) {
+                value = examples.put(type, modelAttr, value);
+            }
+        }
+        return value;
+    }
+
+    private Object buildValue(String type, String example, ModelAttr modelAttr, ExampleCache examples) {
         int pos = -1;
         String itemType = "";
         if ((pos = type.indexOf(":")) != -1) {
@@ -581,18 +886,20 @@ public class WordServiceImpl implements WordService {
                 Map<String, Object> map = new LinkedHashMap<>();
                 if (modelAttr != null && !CollectionUtils.isEmpty(modelAttr.getProperties())) {
                     for (ModelAttr subModelAttr : modelAttr.getProperties()) {
-                        map.put(subModelAttr.getName(), getValue(subModelAttr.getType(), null, subModelAttr));
+                        map.put(subModelAttr.getName(),
+                            getValue(subModelAttr.getType(), null, subModelAttr, examples));
                     }
                     list.add(map);
                 } else if (itemType.length() > 0) {
-                    list.add(getValue(itemType, null, null));
+                    list.add(getValue(itemType, null, null, examples));
                 }
                 return list;
             case "object":
                 map = new LinkedHashMap<>();
                 if (modelAttr != null && !CollectionUtils.isEmpty(modelAttr.getProperties())) {
                     for (ModelAttr subModelAttr : modelAttr.getProperties()) {
-                        map.put(subModelAttr.getName(), getValue(subModelAttr.getType(), null, subModelAttr));
+                        map.put(subModelAttr.getName(),
+                            getValue(subModelAttr.getType(), null, subModelAttr, examples));
                     }
                 }
                 return map;
@@ -654,4 +961,19 @@ public class WordServiceImpl implements WordService {
         }
         return sb.toString();
     }
+
+    @Data
+    private static class Fetched {
+
+        /**
+         * 上游返回的原始内容，压缩的内容解析时解压
+         */
+        private final SpooledInput body;
+
+        private final Charset charset;
+
+        private final String etag;
+
+        private final String lastModified;
+    }
 }
@@ -0,0 +1,34 @@
+package org.word.utils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 按文件头识别 gzip 压缩的输入，.json.gz 文件不依赖文件名也能识别
+ *
+ * @author kevin
+ */
+public class GzipUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private GzipUtils() {
+    }
+
+    /**
+     * 输入以 gzip 文件头 1f 8b 开始时返回解压流，否则原样返回（带缓冲）
+     */
+    public static InputStream decompressIfGzip(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        return buffered;
+    }
+}
@@ -0,0 +1,22 @@
+package org.word.utils;
+
+/**
+ * 异步任务队列已满，拒绝提交，接口返回 503 和 Retry-After
+ *
+ * @author kevin
+ */
+public class JobRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 4630163372950224215L;
+
+    private final long retryAfterSeconds;
+
+    public JobRejectedException(int queueCapacity, long retryAfterSeconds) {
+        super("job queue is full (" + queueCapacity + " queued), retry after " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -39,6 +40,17 @@ public class JsonUtils {
         return objectMapper.readValue(jsonStr, javaType);
     }
 
+    /**
+     * 创建与 objectMapper 配置一致的流式解析器
+     */
+    public static JsonParser createParser(String jsonStr) throws IOException {
+        return objectMapper.getFactory().createParser(jsonStr);
+    }
+
+    public static JsonParser createParser(Reader reader) throws IOException {
+        return objectMapper.getFactory().createParser(reader);
+    }
+
     public static ArrayNode readArray(String jsonStr) throws IOException {
         JsonNode node = objectMapper.readTree(jsonStr);
         if (node.isArray()) {
@@ -0,0 +1,158 @@
+package org.word.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并相同 key 的并发调用：第一个调用者执行，执行期间到达的调用者等待并共享同一个结果或异常，
+ * 执行结束后 key 即移除，之后的调用重新执行
+ *
+ * @author kevin
+ */
+public class SingleFlight<V> {
+
+    /**
+     * 结果需要按使用者计数释放时实现，例如临时文件
+     */
+    public interface Shared {
+
+        /**
+         * 结果交给等待者之前调用一次
+         *
+         * @param waiters 等待该结果的调用者数
+         */
+        void retain(int waiters);
+
+        /**
+         * 使用者用完或放弃时调用
+         */
+        void release();
+    }
+
+    private final String operation;
+
+    private final ConcurrentHashMap<String, Call<V>> calls = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final LongAdder leaders = new LongAdder();
+
+    private final LongAdder followers = new LongAdder();
+
+    /**
+     * @param operation 指标中的 operation 标签
+     */
+    public SingleFlight(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * 执行 loader，相同 key 正在执行时等待其结果
+     *
+     * @param key
+     * @param loader
+     * @return loader 的结果
+     * @throws Exception loader 抛出的异常，等待时被中断抛出 InterruptedException
+     */
+    public V execute(String key, Callable<V> loader) throws Exception {
+        Call<V> call = new Call<>();
+        Call<V> current = calls.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return call;
+            }
+            existing.waiters++;
+            return existing;
+        });
+        if (current != call) {
+            return await(current);
+        }
+        leaders.increment();
+        V value;
+        try {
+            value = loader.call();
+        } catch (Throwable e) {
+            calls.remove(key, call);
+            call.future.completeExceptionally(e);
+            throw e;
+        }
+        // 先移除再交出结果，移除后等待者数不再变化
+        calls.remove(key, call);
+        if (value instanceof Shared && call.waiters > 0) {
+            ((Shared)value).retain(call.waiters);
+        }
+        call.future.complete(value);
+        return value;
+    }
+
+    private V await(Call<V> call) throws Exception {
+        followers.increment();
+        waiting.incrementAndGet();
+        try {
+            return call.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw cause instanceof Exception ? (Exception)cause : e;
+        } catch (InterruptedException e) {
+            // 已计入等待者，结果出来后替这个调用者释放
+            call.future.thenAccept(value -> {
+                if (value instanceof Shared) {
+                    ((Shared)value).release();
+                }
+            });
+            throw e;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 实际执行的次数
+     */
+    public long getLeaders() {
+        return leaders.sum();
+    }
+
+    /**
+     * 合并到其他调用上的次数
+     */
+    public long getFollowers() {
+        return followers.sum();
+    }
+
+    /**
+     * 当前正在等待的调用者数
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * 合并的调用占全部调用的比例
+     */
+    public double getCoalescingRatio() {
+        long followers = getFollowers();
+        long total = getLeaders() + followers;
+        return total == 0 ? 0 : (double)followers / total;
+    }
+
+    private static class Call<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /**
+         * 只在 ConcurrentHashMap.compute 中修改
+         */
+        private int waiters;
+    }
+}
@@ -0,0 +1,27 @@
+package org.word.utils;
+
+/**
+ * 获取或解析 Swagger 资源失败，消息中带上原因，用于批量转换的清单
+ *
+ * @author kevin
+ */
+public class SpecLoadException extends RuntimeException {
+
+    private static final long serialVersionUID = 7916254178412963503L;
+
+    public SpecLoadException(String source, Throwable cause) {
+        super("failed to load " + source + ": " + message(cause), cause);
+    }
+
+    /**
+     * RestTemplate 等包装的异常消息中重复带有原因，取最内层的原因
+     */
+    private static String message(Throwable cause) {
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String message = root.getMessage();
+        return message == null || message.isEmpty() ? root.getClass().getSimpleName() : message;
+    }
+}
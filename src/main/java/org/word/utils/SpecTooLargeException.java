@@ -0,0 +1,22 @@
+package org.word.utils;
+
+/**
+ * Swagger 资源超出大小限制，接口返回 413
+ *
+ * @author kevin
+ */
+public class SpecTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = -2271873425183626742L;
+
+    private final long limit;
+
+    public SpecTooLargeException(long limit) {
+        super("swagger json exceeds the limit of " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
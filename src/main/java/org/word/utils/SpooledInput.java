@@ -0,0 +1,86 @@
+package org.word.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * 先把网络输入完整读到内存或临时文件，再交给解析器，读取期间不占用解析许可。
+ * 不超过阈值时留在内存，超过后写入临时文件，关闭时删除
+ *
+ * @author kevin
+ */
+public class SpooledInput implements Closeable {
+
+    private final byte[] content;
+
+    private final File file;
+
+    private final long size;
+
+    private SpooledInput(byte[] content, File file, long size) {
+        this.content = content;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * 读完输入，不关闭输入
+     *
+     * @param in        输入
+     * @param limit     最大字节数，超过时抛出 {@link SpecTooLargeException}
+     * @param threshold 超过该大小时写入临时文件
+     */
+    public static SpooledInput spool(InputStream in, long limit, int threshold) throws IOException {
+        CountingInputStream counting = new CountingInputStream(in, limit);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = counting.read(chunk)) >= 0) {
+            buffer.write(chunk, 0, n);
+            if (buffer.size() > threshold) {
+                return spoolToFile(buffer, counting, chunk);
+            }
+        }
+        return new SpooledInput(buffer.toByteArray(), null, buffer.size());
+    }
+
+    private static SpooledInput spoolToFile(ByteArrayOutputStream buffer, CountingInputStream in, byte[] chunk)
+        throws IOException {
+        File file = File.createTempFile("swagger2word-spool-", ".json");
+        boolean success = false;
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            buffer.writeTo(out);
+            int n;
+            while ((n = in.read(chunk)) >= 0) {
+                out.write(chunk, 0, n);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        return new SpooledInput(null, file, in.getCount());
+    }
+
+    public InputStream open() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(file.toPath());
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}